@@ -0,0 +1,36 @@
+package BehavioralPatterns.Observer;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 구독자 수에 따른 Youtuber.uploadNewVideo 비용.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class YoutuberBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int subscriberCount;
+
+    private Youtuber youtuber;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        youtuber = new Youtuber();
+        for (int i = 0; i < subscriberCount; i++) {
+            youtuber.subscribe(new Subscriber("구독자" + i));
+        }
+    }
+
+    @Benchmark
+    public void uploadNewVideo() {
+        youtuber.uploadNewVideo("벤치마크 영상");
+    }
+}
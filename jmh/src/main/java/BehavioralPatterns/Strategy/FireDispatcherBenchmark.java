@@ -0,0 +1,57 @@
+package BehavioralPatterns.Strategy;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 세 종류의 탄을 섞어 쏠 때, 호출 지점 하나로 쏘는 반복문과 탄 종류별 전용 반복문의 비용 비교.
+// 인라인 여부는 -jvmArgsAppend "-XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining" 로 확인한다.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FireDispatcherBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int rounds;
+
+    private Bullet[] bullets;
+    private FireDispatcher fireDispatcher;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        bullets = new Bullet[]{new RealBullet(), new BlankBullet(), new GasBullet(),
+                new RealBullet(), new GasBullet(), new BlankBullet()};
+        fireDispatcher = new FireDispatcher();
+    }
+
+    // 한 호출 지점이 세 종류를 모두 봐서 megamorphic 이 된다.
+    @Benchmark
+    public void sharedLoop() {
+        for (Bullet bullet : bullets) {
+            for (int i = 0; i < rounds; i++) {
+                bullet.action();
+            }
+        }
+    }
+
+    @Benchmark
+    public void perClassLoop() {
+        for (Bullet bullet : bullets) {
+            FireDispatcher.fire(bullet, rounds);
+        }
+    }
+
+    @Benchmark
+    public void batchedFireAll() {
+        for (Bullet bullet : bullets) {
+            fireDispatcher.request(bullet, rounds);
+        }
+        fireDispatcher.fireAll();
+    }
+}
@@ -0,0 +1,41 @@
+package DesignPatterns.BehavioralPatterns.ChainOfResponsibility;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 체인 길이에 따른 Handler.requestProcess 비용. 요청은 항상 마지막 처리자까지 내려간다.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerBenchmark {
+
+    @Param({"3", "16", "128"})
+    int chainLength;
+
+    private Handler head;
+    private Request request;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        head = new PartTimeWorker("처리자0", 0);
+        Handler tail = head;
+        for (int i = 1; i < chainLength; i++) {
+            Handler next = new Manager("처리자" + i, i);
+            tail.setNextHandler(next);
+            tail = next;
+        }
+        request = new Request("벤치마크 요청", chainLength - 1);
+    }
+
+    @Benchmark
+    public void requestProcess() {
+        head.requestProcess(request);
+    }
+}
@@ -0,0 +1,50 @@
+package DesignPatterns.BehavioralPatterns.Command;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 주문 수에 따른 Waiter.orderFinish 비용. orderFinish 가 주문 목록을 비우므로 매번 주문을 다시 받는다.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WaiterBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int orderCount;
+
+    @Param({"false", "true"})
+    boolean coalescing;
+
+    private Waiter waiter;
+    private Order[] orders;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        Chef chef = new Chef();
+        waiter = new Waiter();
+        waiter.setCoalescing(coalescing);
+        orders = new Order[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            switch (i % 3) {
+                case 0 -> orders[i] = new StakeOrder(chef);
+                case 1 -> orders[i] = new SideOrder(chef);
+                default -> orders[i] = new BeverageOrder(chef);
+            }
+        }
+    }
+
+    @Benchmark
+    public void orderFinish() {
+        for (Order order : orders) {
+            waiter.acceptOrder(order);
+        }
+        waiter.orderFinish();
+    }
+}
@@ -0,0 +1,45 @@
+package DesignPatterns.BehavioralPatterns.Mediator;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 예약된 비행경로 수에 따른 IncheonControlTower.canTakeoff 비용. 매번 예약 후 바로 해제한다.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ControlTowerBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    int pathCount;
+
+    private IncheonControlTower controlTower;
+    private String[] flightPaths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        controlTower = new IncheonControlTower();
+        flightPaths = new String[pathCount];
+        for (int i = 0; i < pathCount; i++) {
+            flightPaths[i] = "경로" + i;
+            // 나머지 경로는 사용중으로 남겨 맵 크기를 pathCount 로 유지한다.
+            controlTower.canTakeoff("점유" + i);
+        }
+    }
+
+    @Benchmark
+    public boolean canTakeoff() {
+        String flightPath = flightPaths[next];
+        next = next + 1 == pathCount ? 0 : next + 1;
+        boolean granted = controlTower.canTakeoff(flightPath);
+        controlTower.release(flightPath);
+        return granted;
+    }
+}
@@ -0,0 +1,36 @@
+package DesignPatterns.BehavioralPatterns.Prototype;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 장착 모듈 수에 따른 Robot.clone 비용.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RobotBenchmark {
+
+    @Param({"0", "16", "1024"})
+    int moduleCount;
+
+    private Robot prototype;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        prototype = new Robot(10, 20);
+        for (int i = 0; i < moduleCount; i++) {
+            prototype.addModule("모듈" + i);
+        }
+    }
+
+    @Benchmark
+    public RobotPrototype cloneRobot() {
+        return prototype.clone();
+    }
+}
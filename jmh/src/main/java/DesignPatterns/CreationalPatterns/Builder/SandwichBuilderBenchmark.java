@@ -0,0 +1,39 @@
+package DesignPatterns.CreationalPatterns.Builder;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 빼 달라는 야채 수에 따른 Sandwich.Builder.excludeVegetables 비용.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SandwichBuilderBenchmark {
+
+    private static final String[] VEGETABLES = {"양상추", "토마토", "오이", "피클", "올리브"};
+
+    @Param({"0", "2", "5"})
+    int excludedCount;
+
+    private String excludedVegetables;
+
+    @Setup
+    public void setUp() {
+        StringBuilder excluded = new StringBuilder();
+        for (int i = 0; i < excludedCount; i++) {
+            if (i > 0) {
+                excluded.append(',');
+            }
+            excluded.append(VEGETABLES[i]);
+        }
+        excludedVegetables = excluded.toString();
+    }
+
+    @Benchmark
+    public Sandwich.Builder excludeVegetables() {
+        return new Sandwich.Builder().excludeVegetables(excludedVegetables);
+    }
+}
@@ -0,0 +1,34 @@
+package DesignPatterns.StructuralPatterns.Decorator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 데코레이터를 겹친 깊이에 따른 getCost 비용.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IcecreamDecoratorBenchmark {
+
+    @Param({"1", "16", "1024"})
+    int depth;
+
+    private Icecream icecream;
+
+    @Setup
+    public void setUp() {
+        Icecream decorated = new BasicIcecream();
+        for (int i = 0; i < depth; i++) {
+            decorated = i % 2 == 0 ? new ChocoSyrupDecorator(decorated) : new FruitDecorator(decorated);
+        }
+        icecream = decorated;
+    }
+
+    @Benchmark
+    public int getCost() {
+        return icecream.getCost();
+    }
+}
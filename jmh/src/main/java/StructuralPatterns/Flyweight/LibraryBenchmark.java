@@ -0,0 +1,44 @@
+package StructuralPatterns.Flyweight;
+
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.NoOpEventSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 소장 도서 수에 따른 Library.lendBook 비용. 모든 책은 미리 사 두어 공유 객체만 빌려준다.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LibraryBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    int bookCount;
+
+    private Library library;
+    private Student student;
+    private String[] bookNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new NoOpEventSink());
+        library = new Library();
+        student = new Student("벤치마크");
+        bookNames = new String[bookCount];
+        for (int i = 0; i < bookCount; i++) {
+            bookNames[i] = "도서" + i;
+            library.buyBook(bookNames[i]);
+        }
+    }
+
+    @Benchmark
+    public void lendBook() {
+        String bookName = bookNames[next];
+        next = next + 1 == bookCount ? 0 : next + 1;
+        library.lendBook(student, bookName);
+    }
+}
@@ -1,5 +1,19 @@
 package DesignPatterns.BehavioralPatterns.ChainOfResponsibility;
 
+import DesignPatterns.Common.EventLog;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class ChainOfResponsibilityExample {
     public static void main(String[] args) {
         Handler minsu = new PartTimeWorker("알바 민수",10);
@@ -16,13 +30,27 @@ public class ChainOfResponsibilityExample {
         minsu.requestProcess(easyRequest);
         minsu.requestProcess(normalRequest);
         minsu.requestProcess(hardRequest);
+
+        CompiledChain compiledChain = CompiledChain.compile(minsu);
+        compiledChain.requestProcess(normalRequest);
+        compiledChain.requestProcess(new Request("본사 감사",5000));
+
+        BatchRequestProcessor batchProcessor = new BatchRequestProcessor(compiledChain, 2, 128);
+        List<CompletableFuture<RequestResult>> resultList =
+                batchProcessor.submitAll(List.of(easyRequest, normalRequest, hardRequest, new Request("본사 감사",5000)));
+        for(CompletableFuture<RequestResult> result : resultList){
+            EventLog.println(result.join().toString());
+        }
+        batchProcessor.shutdown();
     }
 }
 
 class Handler{
     String name;
-    Handler nextHandler;
-    int capability;
+    private Handler nextHandler;
+    private int capability;
+    // 이 핸들러가 속한 CompiledChain 의 변경 번호. compile 할 때 붙고, 연결이나 능력이 바뀌면 올라간다.
+    private volatile AtomicLong chainVersion;
 
     public Handler(String name, int capability) {
         this.name = name;
@@ -31,16 +59,50 @@ class Handler{
 
     public void setNextHandler(Handler handler){
       this.nextHandler = handler;
+      markChanged();
     };
 
+    public void setCapability(int capability){
+        this.capability = capability;
+        markChanged();
+    }
+
+    Handler getNextHandler() {
+        return nextHandler;
+    }
+
+    int getCapability() {
+        return capability;
+    }
+
+    AtomicLong getChainVersion() {
+        return chainVersion;
+    }
+
+    // 다른 체인에 컴파일돼 있던 핸들러라면 그 체인의 번호도 올려, 그 체인이 더 이상 이 핸들러를 믿지 않게 한다.
+    void attachChainVersion(AtomicLong version){
+        AtomicLong previous = chainVersion;
+        chainVersion = version;
+        if(previous != null && previous != version){
+            previous.incrementAndGet();
+        }
+    }
+
+    private void markChanged(){
+        AtomicLong version = chainVersion;
+        if(version != null){
+            version.incrementAndGet();
+        }
+    }
+
     public void requestProcess(Request request){
         if(request.getRequestLevel() > capability && nextHandler != null){
-            System.out.println(nextHandler.getName()+"님. 요청 처리 부탁드립니다.");
+            EventLog.println(nextHandler.getName()+"님. 요청 처리 부탁드립니다.");
             nextHandler.requestProcess(request);
         }else if(request.getRequestLevel() > capability && nextHandler == null){
-            System.out.println("현재 상위 담당자가 부재중입니다. 나중에 요청 부탁드려요.");
+            EventLog.println("현재 상위 담당자가 부재중입니다. 나중에 요청 부탁드려요.");
         }else if(request.getRequestLevel() <= capability){
-            System.out.println(this.name + " - 요청 처리 완료 : " +  request.getRequestContent());
+            EventLog.println(this.name + " - 요청 처리 완료 : " +  request.getRequestContent());
         }
     }
 
@@ -83,4 +145,300 @@ class Request{
     public String getRequestContent() {
         return requestContent;
     }
+}
+
+// 체인을 배열로 고정해, 요청을 처리할 핸들러를 이분 탐색으로 바로 찾는다.
+// 체인의 핸들러들은 변경 번호 하나를 같이 가지므로, 이 체인의 연결이나 능력이 바뀔 때만 변경으로 본다.
+class CompiledChain{
+    private final Handler head;
+    private final Handler[] handlers;
+    private final int[] capabilities;
+    private final AtomicLong chainVersion;
+    private final long compiledVersion;
+
+    private CompiledChain(Handler head, Handler[] handlers, int[] capabilities, AtomicLong chainVersion, long compiledVersion) {
+        this.head = head;
+        this.handlers = handlers;
+        this.capabilities = capabilities;
+        this.chainVersion = chainVersion;
+        this.compiledVersion = compiledVersion;
+    }
+
+    public static CompiledChain compile(Handler head){
+        AtomicLong chainVersion = new AtomicLong();
+        while(true){
+            List<Handler> members = walk(head);
+            for(Handler member : members){
+                member.attachChainVersion(chainVersion);
+            }
+            // 번호를 붙이기 전에 바뀐 연결이나 능력은 번호로 알 수 없으므로, 붙인 뒤 한 번 더 읽어 같은지 확인한다.
+            long version = chainVersion.get();
+            int[] memberCapabilities = capabilitiesOf(members);
+            if(members.equals(walk(head)) && Arrays.equals(memberCapabilities, capabilitiesOf(members))){
+                return build(head, members, memberCapabilities, chainVersion, version);
+            }
+        }
+    }
+
+    private static List<Handler> walk(Handler head){
+        List<Handler> members = new ArrayList<>();
+        Map<Handler,Boolean> visited = new IdentityHashMap<>();
+        for(Handler handler = head; handler != null; handler = handler.getNextHandler()){
+            if(visited.put(handler,Boolean.TRUE) != null){
+                throw new IllegalStateException("체인에 순환이 있습니다 : " + handler.getName());
+            }
+            members.add(handler);
+        }
+        return members;
+    }
+
+    private static int[] capabilitiesOf(List<Handler> members){
+        int[] memberCapabilities = new int[members.size()];
+        for(int i = 0; i < memberCapabilities.length; i++){
+            memberCapabilities[i] = members.get(i).getCapability();
+        }
+        return memberCapabilities;
+    }
+
+    private static CompiledChain build(Handler head, List<Handler> members, int[] memberCapabilities,
+                                       AtomicLong chainVersion, long version){
+        Handler[] handlers = new Handler[members.size()];
+        int[] capabilities = new int[members.size()];
+        int count = 0;
+        for(int i = 0; i < memberCapabilities.length; i++){
+            // 앞의 핸들러보다 능력이 큰 핸들러만 요청을 받을 수 있다.
+            if(count == 0 || memberCapabilities[i] > capabilities[count - 1]){
+                handlers[count] = members.get(i);
+                capabilities[count] = memberCapabilities[i];
+                count++;
+            }
+        }
+        return new CompiledChain(head, Arrays.copyOf(handlers, count), Arrays.copyOf(capabilities, count),
+                chainVersion, version);
+    }
+
+    // 컴파일한 뒤 이 체인의 연결이나 능력이 바뀌었으면 true. 그때는 다시 compile 하면 된다.
+    public boolean isChanged() {
+        return chainVersion.get() != compiledVersion;
+    }
+
+    public void requestProcess(Request request){
+        Handler handler = resolve(request.getRequestLevel());
+        if(handler == null){
+            EventLog.println("현재 상위 담당자가 부재중입니다. 나중에 요청 부탁드려요.");
+        }else{
+            EventLog.println(handler.getName() + " - 요청 처리 완료 : " + request.getRequestContent());
+        }
+    }
+
+    // 요청을 처리할 핸들러. 처리할 수 있는 핸들러가 없으면 null
+    // 사용 중에 체인이 바뀌었다면 재귀 없이 한 단계씩 따라가므로, 단계가 많아도 스택이 넘치지 않는다.
+    Handler resolve(int requestLevel){
+        if(isChanged()){
+            Map<Handler,Boolean> visited = new IdentityHashMap<>();
+            for(Handler handler = head; handler != null && visited.put(handler,Boolean.TRUE) == null;
+                handler = handler.getNextHandler()){
+                if(requestLevel <= handler.getCapability()){
+                    return handler;
+                }
+            }
+            return null;
+        }
+        int index = findHandlerIndex(requestLevel);
+        return index == handlers.length ? null : handlers[index];
+    }
+
+    Handler[] getHandlers() {
+        return handlers.clone();
+    }
+
+    // capability >= requestLevel 인 첫 번째 핸들러의 위치
+    private int findHandlerIndex(int requestLevel){
+        int low = 0;
+        int high = capabilities.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(capabilities[mid] < requestLevel){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
+
+// 요청 하나의 처리 결과. 처리한 핸들러가 없으면 상위 담당자 부재로 거절된 요청이다.
+class RequestResult{
+    private final Request request;
+    private final Handler handler;
+
+    public RequestResult(Request request, Handler handler) {
+        this.request = request;
+        this.handler = handler;
+    }
+
+    public boolean isProcessed() {
+        return handler != null;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    public Handler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public String toString() {
+        if(!isProcessed()){
+            return "거절 - 상위 담당자 부재 : " + request.getRequestContent();
+        }
+        return handler.getName() + " - 요청 처리 완료 : " + request.getRequestContent();
+    }
+}
+
+// 요청들을 처리할 핸들러별로 나눠, 핸들러마다 workersPerHandler 개의 작업 스레드가 각자 자기 큐를 비우며 처리한다.
+// 같은 핸들러로 가는 요청은 작업 스레드들에 번갈아 배정되므로, 처리량은 핸들러 수 x workersPerHandler 까지 늘어난다.
+// 예제의 처리 자체는 결과 객체를 만드는 것뿐이라, 실제 이득은 핸들러의 처리 비용이 클 때 생긴다.
+class BatchRequestProcessor{
+    private static final long OFFER_WAIT_MILLIS = 10;
+
+    private final CompiledChain compiledChain;
+    private final Map<Handler,HandlerWorker[]> workerMap = new IdentityHashMap<>();
+    private final Map<Handler,AtomicInteger> nextWorkerMap = new IdentityHashMap<>();
+    private volatile boolean closed;
+
+    public BatchRequestProcessor(CompiledChain compiledChain, int queueCapacity) {
+        this(compiledChain, 1, queueCapacity);
+    }
+
+    public BatchRequestProcessor(CompiledChain compiledChain, int workersPerHandler, int queueCapacity) {
+        if(workersPerHandler <= 0 || queueCapacity <= 0){
+            throw new IllegalArgumentException("workersPerHandler, queueCapacity 는 1 이상이어야 합니다.");
+        }
+        this.compiledChain = compiledChain;
+        for(Handler handler : compiledChain.getHandlers()){
+            HandlerWorker[] workers = new HandlerWorker[workersPerHandler];
+            for(int i = 0; i < workersPerHandler; i++){
+                workers[i] = new HandlerWorker(handler, i, queueCapacity);
+                workers[i].start();
+            }
+            workerMap.put(handler, workers);
+            nextWorkerMap.put(handler, new AtomicInteger());
+        }
+    }
+
+    public List<CompletableFuture<RequestResult>> submitAll(Collection<Request> requests){
+        List<CompletableFuture<RequestResult>> resultList = new ArrayList<>(requests.size());
+        for(Request request : requests){
+            resultList.add(submit(request));
+        }
+        return resultList;
+    }
+
+    public CompletableFuture<RequestResult> submit(Request request){
+        if(closed){
+            return CompletableFuture.failedFuture(closedException());
+        }
+        Handler handler = compiledChain.resolve(request.getRequestLevel());
+        if(handler == null){
+            return CompletableFuture.completedFuture(new RequestResult(request, null));
+        }
+        HandlerWorker[] workers = workerMap.get(handler);
+        if(workers == null){
+            // 컴파일 이후 체인에 새로 들어온 핸들러는 호출한 스레드에서 바로 처리한다.
+            return CompletableFuture.completedFuture(new RequestResult(request, handler));
+        }
+        int next = nextWorkerMap.get(handler).getAndIncrement();
+        return enqueue(workers[Math.floorMod(next, workers.length)], request);
+    }
+
+    // 작업 스레드를 멈추고, 처리되지 못한 요청은 예외로 완료한다.
+    public void shutdown(){
+        closed = true;
+        for(HandlerWorker[] workers : workerMap.values()){
+            for(HandlerWorker worker : workers){
+                worker.interrupt();
+            }
+        }
+        for(HandlerWorker[] workers : workerMap.values()){
+            for(HandlerWorker worker : workers){
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                PendingRequest pending;
+                while((pending = worker.queue.poll()) != null){
+                    pending.result.completeExceptionally(closedException());
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<RequestResult> enqueue(HandlerWorker worker, Request request){
+        PendingRequest pending = new PendingRequest(request);
+        try {
+            // 큐가 가득 차면 요청을 넣는 쪽이 기다린다. 기다리는 중에 종료되면 포기한다.
+            while(!worker.queue.offer(pending, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+                if(closed){
+                    pending.result.completeExceptionally(closedException());
+                    return pending.result;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(e);
+            return pending.result;
+        }
+        // 넣는 사이에 종료됐다면, shutdown 이 큐를 비운 뒤일 수 있으므로 직접 꺼내 실패 처리한다.
+        if(closed && worker.queue.remove(pending)){
+            pending.result.completeExceptionally(closedException());
+        }
+        return pending.result;
+    }
+
+    private static IllegalStateException closedException(){
+        return new IllegalStateException("처리기가 종료되었습니다.");
+    }
+
+    private static class HandlerWorker extends Thread{
+        private final Handler handler;
+        private final BlockingQueue<PendingRequest> queue;
+
+        HandlerWorker(Handler handler, int index, int queueCapacity) {
+            super("handler-worker-" + handler.getName() + "-" + index);
+            this.handler = handler;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<PendingRequest> drained = new ArrayList<>();
+            try {
+                while(true){
+                    drained.add(queue.take());
+                    queue.drainTo(drained);
+                    for(PendingRequest pending : drained){
+                        pending.result.complete(new RequestResult(pending.request, handler));
+                    }
+                    drained.clear();
+                }
+            } catch (InterruptedException e) {
+                // 남은 요청은 shutdown 이 작업 스레드가 끝난 뒤 정리한다.
+            }
+        }
+    }
+
+    private static class PendingRequest{
+        private final Request request;
+        private final CompletableFuture<RequestResult> result = new CompletableFuture<>();
+
+        PendingRequest(Request request) {
+            this.request = request;
+        }
+    }
 }
\ No newline at end of file
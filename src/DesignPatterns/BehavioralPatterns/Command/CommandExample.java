@@ -1,7 +1,23 @@
 package DesignPatterns.BehavioralPatterns.Command;
 
+import DesignPatterns.Common.EventLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CommandExample {
     public static void main(String[] args) {
@@ -20,6 +36,32 @@ public class CommandExample {
         sujin.orderFinish();
 
         sujin.orderUndo(mySideOrder);
+
+        Waiter haeun = new Waiter();
+        haeun.setCoalescing(true);
+        for(int i = 0; i < 12; i++){
+            haeun.acceptOrder(new StakeOrder(minsu));
+        }
+        Order canceledOrder = new BeverageOrder(minsu);
+        haeun.acceptOrder(canceledOrder);
+        haeun.acceptOrder(new SideOrder(minsu));
+        haeun.cancelOrder(canceledOrder);
+        haeun.orderFinish();
+
+        Waiter yuna = new Waiter(new OrderJournal(8));
+        yuna.acceptOrder(new StakeOrder(minsu));
+        yuna.acceptOrder(new BeverageOrder(minsu));
+        yuna.orderFinish();
+        yuna.orderUndoLast();
+        yuna.orderRedo();
+
+        AsyncWaiter jihoon = new AsyncWaiter(2, 16);
+        List<CompletableFuture<Void>> orderResults = new ArrayList<>();
+        orderResults.add(jihoon.acceptOrder(new StakeOrder(minsu)));
+        orderResults.add(jihoon.acceptOrder(new SideOrder(minsu)));
+        orderResults.add(jihoon.acceptOrder(new BeverageOrder(minsu)));
+        CompletableFuture.allOf(orderResults.toArray(new CompletableFuture<?>[0])).join();
+        jihoon.shutdown();
     }
 }
 
@@ -29,58 +71,128 @@ interface Order{
     void undo();
 }
 
+// 같은 셰프에게 가는 같은 종류의 주문은 수량을 합쳐 한 번에 전달할 수 있다.
+interface MergeableOrder extends Order{
+    Chef getChef();
+    int getQuantity();
+    MergeableOrder withQuantity(int quantity);
+}
+
 // ConcreteCommand - 상세 메뉴 주문
-class StakeOrder implements Order{
+class StakeOrder implements MergeableOrder{
     private Chef chef;
+    private final int quantity;
 
     public StakeOrder(Chef chef) {
+        this(chef, 1);
+    }
+
+    public StakeOrder(Chef chef, int quantity) {
         this.chef = chef;
+        this.quantity = quantity;
     }
 
     @Override
     public void execute() {
-        chef.cookSteak();
+        chef.cookSteak(quantity);
     }
 
     @Override
     public void undo() {
-        chef.cookSteakUndo();
+        chef.cookSteakUndo(quantity);
+    }
+
+    @Override
+    public Chef getChef() {
+        return chef;
+    }
+
+    @Override
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public MergeableOrder withQuantity(int quantity) {
+        return new StakeOrder(chef, quantity);
     }
 }
 
-class SideOrder implements Order{
+class SideOrder implements MergeableOrder{
     private Chef chef;
+    private final int quantity;
 
     public SideOrder(Chef chef) {
+        this(chef, 1);
+    }
+
+    public SideOrder(Chef chef, int quantity) {
         this.chef = chef;
+        this.quantity = quantity;
     }
 
     @Override
     public void execute() {
-        chef.cookSide();
+        chef.cookSide(quantity);
     }
 
     @Override
     public void undo() {
-        chef.cookSideUndo();
+        chef.cookSideUndo(quantity);
+    }
+
+    @Override
+    public Chef getChef() {
+        return chef;
+    }
+
+    @Override
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public MergeableOrder withQuantity(int quantity) {
+        return new SideOrder(chef, quantity);
     }
 }
 
-class BeverageOrder implements Order{
+class BeverageOrder implements MergeableOrder{
     private Chef chef;
+    private final int quantity;
 
     public BeverageOrder(Chef chef) {
+        this(chef, 1);
+    }
+
+    public BeverageOrder(Chef chef, int quantity) {
         this.chef = chef;
+        this.quantity = quantity;
     }
 
     @Override
     public void execute() {
-        chef.makeLemonade();
+        chef.makeLemonade(quantity);
     }
 
     @Override
     public void undo() {
-        chef.makeLemonadeUndo();
+        chef.makeLemonadeUndo(quantity);
+    }
+
+    @Override
+    public Chef getChef() {
+        return chef;
+    }
+
+    @Override
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public MergeableOrder withQuantity(int quantity) {
+        return new BeverageOrder(chef, quantity);
     }
 }
 
@@ -88,27 +200,75 @@ class BeverageOrder implements Order{
 
 class Chef {
     public void cookSteak(){
-        System.out.println("셰프가 스테이크를 굽습니다.");
+        EventLog.println("셰프가 스테이크를 굽습니다.");
+    }
+
+    public void cookSteak(int count){
+        if(count == 1){
+            cookSteak();
+            return;
+        }
+        EventLog.println("셰프가 스테이크 " + count + "인분을 굽습니다.");
     }
 
     public void cookSteakUndo(){
-        System.out.println("스테이크 조리를 취소합니다.");
+        EventLog.println("스테이크 조리를 취소합니다.");
+    }
+
+    public void cookSteakUndo(int count){
+        if(count == 1){
+            cookSteakUndo();
+            return;
+        }
+        EventLog.println("스테이크 " + count + "인분 조리를 취소합니다.");
     }
 
     public void cookSide(){
-        System.out.println("셰프가 감자튀김을 튀깁니다.");
+        EventLog.println("셰프가 감자튀김을 튀깁니다.");
+    }
+
+    public void cookSide(int count){
+        if(count == 1){
+            cookSide();
+            return;
+        }
+        EventLog.println("셰프가 감자튀김 " + count + "인분을 튀깁니다.");
     }
 
     public void cookSideUndo(){
-        System.out.println("감자튀김 조리를 취소합니다.");
+        EventLog.println("감자튀김 조리를 취소합니다.");
+    }
+
+    public void cookSideUndo(int count){
+        if(count == 1){
+            cookSideUndo();
+            return;
+        }
+        EventLog.println("감자튀김 " + count + "인분 조리를 취소합니다.");
     }
 
     public void makeLemonade(){
-        System.out.println("셰프가 레몬에이드를 만듭니다.");
+        EventLog.println("셰프가 레몬에이드를 만듭니다.");
+    }
+
+    public void makeLemonade(int count){
+        if(count == 1){
+            makeLemonade();
+            return;
+        }
+        EventLog.println("셰프가 레몬에이드 " + count + "잔을 만듭니다.");
     }
 
     public void makeLemonadeUndo(){
-        System.out.println("레몬에이드 만들기를 취소합니다.");
+        EventLog.println("레몬에이드 만들기를 취소합니다.");
+    }
+
+    public void makeLemonadeUndo(int count){
+        if(count == 1){
+            makeLemonadeUndo();
+            return;
+        }
+        EventLog.println("레몬에이드 " + count + "잔 만들기를 취소합니다.");
     }
 
 
@@ -118,25 +278,437 @@ class Chef {
 
 class Waiter{
     List<Order> orderList = new ArrayList<>();
+    private final OrderJournal orderJournal;
+    private boolean coalescing;
+
+    public Waiter() {
+        this(null);
+    }
+
+    public Waiter(OrderJournal orderJournal) {
+        this.orderJournal = orderJournal;
+    }
 
     public void acceptOrder(Order newOrder){
-        System.out.println("주문 받았습니다.");
+        EventLog.println("주문 받았습니다.");
         orderList.add(newOrder);
     }
 
+    // 켜 두면 주방에 전달하기 전에 같은 셰프에게 가는 같은 메뉴를 한 번에 묶어서 전달한다.
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    // 아직 주방에 전달되지 않은 주문은 셰프를 거치지 않고 취소한다.
+    public boolean cancelOrder(Order order){
+        for(int i = orderList.size() - 1; i >= 0; i--){
+            if(orderList.get(i) == order){
+                orderList.remove(i);
+                EventLog.println("전달 전 주문을 취소했습니다.");
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void orderFinish(){
-        System.out.println("총 " + orderList.size() + "개 주문하셨습니다.");
-        for(Order order : orderList){
+        EventLog.println("총 " + orderList.size() + "개 주문하셨습니다.");
+        List<Order> dispatchList = coalescing ? OrderCoalescer.coalesce(orderList) : orderList;
+        if(orderJournal != null){
+            // 기록할 수 없는 주문이 섞여 있으면 하나라도 실행하기 전에 거절해서, 다음 orderFinish 가 같은 주문을 또 실행하지 않게 한다.
+            for(Order order : dispatchList){
+                orderJournal.checkRecordable(order);
+            }
+        }
+        for(Order order : dispatchList){
             order.execute();
+            if(orderJournal != null){
+                orderJournal.record(order);
+            }
         }
-        System.out.println("모든 주문을 전달했습니다. 감사합니다.");
+        EventLog.println("모든 주문을 전달했습니다. 감사합니다.");
         orderList.clear();
     }
 
+    // 아직 주방에 전달하지 않은 주문이면 목록에서만 빼고, 이미 전달한 주문일 때만 셰프에게 취소를 요청한다.
     public void orderUndo(Order order){
-        System.out.println("요청하신 주문을 취소하겠습니다.");
+        EventLog.println("요청하신 주문을 취소하겠습니다.");
+        if(cancelOrder(order)){
+            return;
+        }
+        order.undo();
+    }
+
+    public boolean orderUndoLast(){
+        EventLog.println("마지막 주문을 취소하겠습니다.");
+        return orderJournal != null && orderJournal.undo();
+    }
+
+    public boolean orderRedo(){
+        EventLog.println("취소한 주문을 다시 진행하겠습니다.");
+        return orderJournal != null && orderJournal.redo();
+    }
+
+}
+
+
+
+// Invoker (호출자) - 여러 스레드에서 주문을 받아, 스레드 풀에서 묶음 단위로 실행하는 웨이터
+
+class AsyncWaiter{
+    private final Queue<PendingOrder> orderQueue = new ConcurrentLinkedQueue<>();
+    private final ExecutorService kitchen;
+    private final int parallelism;
+    private final int batchSize;
+    private final AtomicInteger runningDispatchers = new AtomicInteger();
+    private volatile boolean closed;
+
+    public AsyncWaiter(int parallelism, int batchSize) {
+        if(parallelism <= 0 || batchSize <= 0){
+            throw new IllegalArgumentException("parallelism, batchSize 는 1 이상이어야 합니다.");
+        }
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.kitchen = Executors.newFixedThreadPool(parallelism);
+    }
+
+    // 영업이 끝난 뒤 받은 주문은 실패한 결과로 돌려준다.
+    public CompletableFuture<Void> acceptOrder(Order newOrder){
+        if(closed){
+            return CompletableFuture.failedFuture(closedException());
+        }
+        PendingOrder pendingOrder = new PendingOrder(newOrder);
+        orderQueue.offer(pendingOrder);
+        // 넣는 사이에 영업이 끝났다면, 아직 아무도 꺼내지 않은 주문만 직접 실패시킨다.
+        if(closed && orderQueue.remove(pendingOrder)){
+            pendingOrder.result.completeExceptionally(closedException());
+            return pendingOrder.result;
+        }
+        startDispatcherIfIdle();
+        return pendingOrder.result;
+    }
+
+    // 새 주문은 더 받지 않고, 이미 받은 주문은 실행 중인 묶음이 모두 처리한 뒤 주방을 닫는다.
+    public void shutdown(){
+        closed = true;
+        kitchen.shutdown();
+    }
+
+    private void startDispatcherIfIdle(){
+        while(true){
+            int running = runningDispatchers.get();
+            if(running >= parallelism || orderQueue.isEmpty()){
+                return;
+            }
+            if(runningDispatchers.compareAndSet(running, running + 1)){
+                try {
+                    kitchen.execute(this::dispatchBatch);
+                } catch (RejectedExecutionException e) {
+                    runningDispatchers.decrementAndGet();
+                    failQueuedOrders(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void dispatchBatch(){
+        try {
+            PendingOrder pendingOrder;
+            int dispatched = 0;
+            // 영업이 끝나면 다음 묶음을 맡길 수 없으므로, 남은 주문을 모두 처리하고 나간다.
+            while((dispatched < batchSize || closed) && (pendingOrder = orderQueue.poll()) != null){
+                try {
+                    pendingOrder.order.execute();
+                    pendingOrder.result.complete(null);
+                } catch (RuntimeException e) {
+                    pendingOrder.result.completeExceptionally(e);
+                }
+                dispatched++;
+            }
+        } finally {
+            runningDispatchers.decrementAndGet();
+        }
+        // 묶음을 처리하는 동안 들어온 주문이 있으면 다음 묶음을 이어서 처리한다.
+        startDispatcherIfIdle();
+    }
+
+    // 주방이 묶음을 받아 주지 않으면, 처리할 사람이 없는 주문을 모두 실패시킨다.
+    private void failQueuedOrders(RejectedExecutionException cause){
+        PendingOrder pendingOrder;
+        while((pendingOrder = orderQueue.poll()) != null){
+            pendingOrder.result.completeExceptionally(cause);
+        }
+    }
+
+    private static IllegalStateException closedException(){
+        return new IllegalStateException("영업이 종료되어 주문을 받을 수 없습니다.");
+    }
+
+    private static class PendingOrder{
+        private final Order order;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingOrder(Order order) {
+            this.order = order;
+        }
+    }
+}
+
+// 실행한 주문의 취소/재실행 기록. 최근 capacity 개만 메모리에 두고, 원하면 파일에 이어서 기록한다.
+class OrderJournal implements AutoCloseable{
+    private static final byte EXECUTE = 1;
+    private static final byte UNDO = 2;
+    private static final byte REDO = 3;
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int ENTRY_SIZE = 6;
+
+    private final Order[] history;
+    private int first;      // 가장 오래된 기록의 위치
+    private int undoCount;  // 취소할 수 있는 기록 수
+    private int redoCount;  // 다시 실행할 수 있는 기록 수
+
+    private FileChannel spillChannel;
+    private MappedByteBuffer spillBuffer;
+    private long spillCount;
+
+    public OrderJournal(int capacity) {
+        if(capacity <= 0){
+            throw new IllegalArgumentException("capacity 는 1 이상이어야 합니다 : " + capacity);
+        }
+        this.history = new Order[capacity];
+    }
+
+    public OrderJournal(int capacity, Path spillFile) {
+        this(capacity);
+        try {
+            this.spillChannel = FileChannel.open(spillFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapSpillFile(Math.max(spillChannel.size(), HEADER_SIZE + (long) ENTRY_SIZE * capacity));
+            this.spillCount = spillBuffer.getLong(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 이미 실행된 주문을 기록한다. 새 기록이 생기면 다시 실행할 수 있던 기록은 사라진다.
+    public void record(Order order){
+        spill(EXECUTE, order);
+        push(order);
+    }
+
+    public boolean undo(){
+        Order order = stepBack();
+        if(order == null){
+            return false;
+        }
+        spill(UNDO, order);
         order.undo();
+        return true;
+    }
+
+    public boolean redo(){
+        Order order = stepForward();
+        if(order == null){
+            return false;
+        }
+        spill(REDO, order);
+        order.execute();
+        return true;
+    }
+
+    public int undoableCount() {
+        return undoCount;
+    }
+
+    public int redoableCount() {
+        return redoCount;
+    }
+
+    // 재시작 후 파일에 남은 기록으로 취소/재실행 기록을 되살린다. 주방은 이미 그 상태라고 보고 다시 실행하지 않는다.
+    public static OrderJournal replay(int capacity, Path spillFile, Chef chef){
+        return replay(capacity, spillFile, chef, false);
+    }
+
+    // reexecute 가 true 면 기록을 순서대로 다시 실행해 주방 상태까지 되살린다.
+    // 돌려받은 기록은 같은 파일에 이어서 기록한다.
+    public static OrderJournal replay(int capacity, Path spillFile, Chef chef, boolean reexecute){
+        OrderJournal orderJournal = new OrderJournal(capacity, spillFile);
+        MappedByteBuffer buffer = orderJournal.spillBuffer;
+        for(long i = 0; i < orderJournal.spillCount; i++){
+            int position = (int) (HEADER_SIZE + i * ENTRY_SIZE);
+            byte operation = buffer.get(position);
+            if(operation == EXECUTE){
+                Order order = orderOf(buffer.get(position + 1), chef, buffer.getInt(position + 2));
+                if(reexecute){
+                    order.execute();
+                }
+                orderJournal.push(order);
+            }else if(operation == UNDO){
+                Order order = orderJournal.stepBack();
+                if(order != null && reexecute){
+                    order.undo();
+                }
+            }else if(operation == REDO){
+                Order order = orderJournal.stepForward();
+                if(order != null && reexecute){
+                    order.execute();
+                }
+            }
+        }
+        return orderJournal;
+    }
+
+    private void push(Order order){
+        redoCount = 0;
+        if(undoCount == history.length){
+            history[first] = null;
+            first = (first + 1) % history.length;
+            undoCount--;
+        }
+        history[(first + undoCount) % history.length] = order;
+        undoCount++;
     }
 
+    // 취소할 기록을 돌려준다. 없으면 null.
+    private Order stepBack(){
+        if(undoCount == 0){
+            return null;
+        }
+        undoCount--;
+        redoCount++;
+        return history[(first + undoCount) % history.length];
+    }
+
+    // 다시 실행할 기록을 돌려준다. 없으면 null.
+    private Order stepForward(){
+        if(redoCount == 0){
+            return null;
+        }
+        Order order = history[(first + undoCount) % history.length];
+        undoCount++;
+        redoCount--;
+        return order;
+    }
+
+    @Override
+    public void close() {
+        if(spillChannel == null){
+            return;
+        }
+        try {
+            spillBuffer.force();
+            spillChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 파일에 남길 수 없는 주문이면 IllegalArgumentException 을 던진다. 파일을 쓰지 않는 기록은 모든 주문을 받는다.
+    void checkRecordable(Order order){
+        if(spillChannel != null){
+            codeOf(order);
+        }
+    }
+
+    private void spill(byte operation, Order order){
+        if(spillChannel == null){
+            return;
+        }
+        long position = HEADER_SIZE + spillCount * ENTRY_SIZE;
+        if(position + ENTRY_SIZE > spillBuffer.capacity()){
+            mapSpillFile(spillBuffer.capacity() * 2L);
+        }
+        spillBuffer.put((int) position, operation);
+        spillBuffer.put((int) position + 1, codeOf(order));
+        spillBuffer.putInt((int) position + 2, ((MergeableOrder) order).getQuantity());
+        spillCount++;
+        spillBuffer.putLong(0, spillCount);
+    }
+
+    private void mapSpillFile(long size){
+        if(size > Integer.MAX_VALUE){
+            throw new IllegalStateException("주문 기록 파일이 너무 큽니다.");
+        }
+        try {
+            spillBuffer = spillChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte codeOf(Order order){
+        if(order instanceof StakeOrder){
+            return 1;
+        }
+        if(order instanceof SideOrder){
+            return 2;
+        }
+        if(order instanceof BeverageOrder){
+            return 3;
+        }
+        throw new IllegalArgumentException("파일에 기록할 수 없는 주문입니다 : " + order.getClass().getSimpleName());
+    }
+
+    private static Order orderOf(byte code, Chef chef, int quantity){
+        switch (code){
+            case 1: return new StakeOrder(chef, quantity);
+            case 2: return new SideOrder(chef, quantity);
+            case 3: return new BeverageOrder(chef, quantity);
+            default: throw new IllegalStateException("알 수 없는 주문 코드입니다 : " + code);
+        }
+    }
 }
 
+// 주방에 전달하기 전, 같은 셰프에게 가는 같은 메뉴 주문들을 수량을 합친 주문 하나로 묶는다.
+class OrderCoalescer{
+
+    private OrderCoalescer() {
+    }
+
+    public static List<Order> coalesce(List<Order> orderList){
+        Map<MergeKey,Integer> positionMap = new LinkedHashMap<>();
+        List<Order> coalescedList = new ArrayList<>();
+        for(Order order : orderList){
+            if(!(order instanceof MergeableOrder)){
+                coalescedList.add(order);
+                continue;
+            }
+            MergeableOrder mergeableOrder = (MergeableOrder) order;
+            MergeKey key = new MergeKey(mergeableOrder.getClass(), mergeableOrder.getChef());
+            Integer position = positionMap.get(key);
+            if(position == null){
+                positionMap.put(key, coalescedList.size());
+                coalescedList.add(mergeableOrder);
+            }else{
+                MergeableOrder merged = (MergeableOrder) coalescedList.get(position);
+                coalescedList.set(position, merged.withQuantity(merged.getQuantity() + mergeableOrder.getQuantity()));
+            }
+        }
+        return coalescedList;
+    }
+
+    private static class MergeKey{
+        private final Class<?> orderType;
+        private final Chef chef;
+
+        MergeKey(Class<?> orderType, Chef chef) {
+            this.orderType = orderType;
+            this.chef = chef;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof MergeKey)){
+                return false;
+            }
+            MergeKey other = (MergeKey) o;
+            return orderType == other.orderType && chef == other.chef;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * orderType.hashCode() + System.identityHashCode(chef);
+        }
+    }
+}
\ No newline at end of file
@@ -1,59 +1,328 @@
 package DesignPatterns.BehavioralPatterns.Mediator;
 
-import java.util.ArrayList;
-import java.util.List;
+import DesignPatterns.Common.EventLog;
+import DesignPatterns.Common.EventSink;
+import DesignPatterns.Common.NoOpEventSink;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MediatorExample {
     public static void main(String[] args) {
-        ControlTower incheonControlTower = new IncheonControlTower();
+        IncheonControlTower incheonControlTower = new IncheonControlTower();
         Airplane jeju123 = new JejuairAirplane(incheonControlTower, "제주항공 비행기");
         Airplane asiana456 = new AsianaAirlinesAirplane(incheonControlTower, "아시아나 비행기");
 
         jeju123.requestTakeoff("1번 비행로");
         asiana456.requestTakeoff("1번 비행로");
         asiana456.requestTakeoff("2번 비행로");
+
+        incheonControlTower.release("1번 비행로");
+        asiana456.requestTakeoff("1번 비행로");
+
+        IncheonControlTower.Lease lease = incheonControlTower.reserveFlightPath("5번 비행로");
+        incheonControlTower.release("5번 비행로", lease);
+        incheonControlTower.reserveFlightPath("5번 비행로");
+        // 이미 반납한 예약으로는 다른 비행기의 예약을 풀 수 없다.
+        incheonControlTower.release("5번 비행로", lease);
+        jeju123.requestTakeoff("5번 비행로");
+
+        ControlTower gimpoControlTower = new StripedControlTower();
+        Airplane jeju789 = new JejuairAirplane(gimpoControlTower, "제주항공 비행기");
+        Airplane asiana012 = new AsianaAirlinesAirplane(gimpoControlTower, "아시아나 비행기");
+        jeju789.requestTakeoff("3번 비행로");
+        asiana012.requestTakeoff("3번 비행로");
+
+        ControlTower jejuControlTower = new SchedulingControlTower();
+        Airplane jeju345 = new JejuairAirplane(jejuControlTower, "제주항공 비행기");
+        Airplane jeju678 = new JejuairAirplane(jejuControlTower, "제주항공 2호기");
+        Airplane asiana901 = new AsianaAirlinesAirplane(jejuControlTower, "아시아나 비행기", 1);
+        jeju345.reserveTakeoff("4번 비행로");
+        jeju678.reserveTakeoff("4번 비행로");
+        asiana901.reserveTakeoff("4번 비행로");
+        jejuControlTower.release("4번 비행로");
+        jejuControlTower.release("4번 비행로");
     }
 }
 
 interface ControlTower{
     boolean canTakeoff(String flightPath);
+    void release(String flightPath);
+
+    // 비행경로가 비면 완료되는 허가. 대기열을 지원하지 않는 관제탑은 바로 허가하거나 거절한다.
+    default CompletableFuture<Void> scheduleTakeoff(String flightPath, int priority){
+        if(canTakeoff(flightPath)){
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.failedFuture(new IllegalStateException("사용중인 비행경로 : " + flightPath));
+    }
 }
 
 class IncheonControlTower implements ControlTower{
 
-    List<String> unavailableFlightPathList = new ArrayList<>();
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    private static final int PURGE_INTERVAL = 1024;
+
+    // 비행경로 -> 현재 예약
+    private final ConcurrentMap<String,Lease> reservedFlightPathMap = new ConcurrentHashMap<>();
+    private final long leaseNanos;
+    private final AtomicInteger reservationCount = new AtomicInteger();
+
+    // 예약한 비행경로는 release 하기 전까지 계속 사용중으로 남는다.
+    public IncheonControlTower() {
+        this.leaseNanos = NO_EXPIRY;
+    }
+
+    // 예약한 비행경로는 lease 시간이 지나면 자동으로 풀린다.
+    public IncheonControlTower(long lease, TimeUnit unit) {
+        if(lease <= 0){
+            throw new IllegalArgumentException("lease 는 1 이상이어야 합니다 : " + lease);
+        }
+        this.leaseNanos = unit.toNanos(lease);
+    }
 
     @Override
     public boolean canTakeoff(String flightPath) {
-        if(unavailableFlightPathList.contains(flightPath)){
-            System.out.println("관제탑 : 사용중인 비행경로. 다른 곳을 요청하십시오.");
+        return reserveFlightPath(flightPath) != null;
+    }
+
+    // 허가되면 예약을 돌려준다. 예약을 가진 쪽만 release(flightPath, lease) 로 비행경로를 풀 수 있다.
+    public Lease reserveFlightPath(String flightPath) {
+        Lease lease = reserve(flightPath);
+        if(lease == null){
+            EventLog.println("관제탑 : 사용중인 비행경로. 다른 곳을 요청하십시오.");
+            return null;
+        }
+        EventLog.println("관제탑 : 이륙 허가.");
+        return lease;
+    }
+
+    // 누가 잡고 있든 비행경로를 푼다. 관제탑이 직접 정리할 때만 쓴다.
+    @Override
+    public void release(String flightPath) {
+        reservedFlightPathMap.remove(flightPath);
+    }
+
+    // lease 가 아직 그 비행경로의 예약일 때만 푼다. 만료된 뒤 다른 비행기가 다시 잡은 예약은 건드리지 않는다.
+    public boolean release(String flightPath, Lease lease) {
+        return reservedFlightPathMap.remove(flightPath, lease);
+    }
+
+    // 비어 있거나 예약이 만료된 비행경로만 예약한다. 여러 스레드가 동시에 불러도 한 쪽만 성공한다.
+    private Lease reserve(String flightPath){
+        long now = System.nanoTime();
+        Lease lease = new Lease(leaseNanos == NO_EXPIRY ? NO_EXPIRY : now + leaseNanos);
+        Lease reserved = reservedFlightPathMap.putIfAbsent(flightPath, lease);
+        while(reserved != null){
+            if(!isExpired(reserved.expiry, now)){
+                return null;
+            }
+            if(reservedFlightPathMap.replace(flightPath, reserved, lease)){
+                break;
+            }
+            reserved = reservedFlightPathMap.putIfAbsent(flightPath, lease);
+        }
+        if(leaseNanos != NO_EXPIRY && reservationCount.incrementAndGet() % PURGE_INTERVAL == 0){
+            purgeExpired(now);
+        }
+        return lease;
+    }
+
+    private void purgeExpired(long now){
+        reservedFlightPathMap.entrySet().removeIf(entry -> isExpired(entry.getValue().expiry, now));
+    }
+
+    private static boolean isExpired(long expiry, long now){
+        return expiry != NO_EXPIRY && expiry - now <= 0;
+    }
+
+    // 예약 한 건. 만료 시각이 같아도 서로 다른 예약으로 구분되도록 equals 를 재정의하지 않는다.
+    static final class Lease{
+        private final long expiry;  // System.nanoTime 기준
+
+        private Lease(long expiry) {
+            this.expiry = expiry;
+        }
+    }
+}
+
+// 비행경로마다 사용중 여부를 하나씩 두는 관제탑.
+// ConcurrentHashMap 이 이미 버킷 단위로 나눠 잠그므로, 서로 다른 비행경로는 부딪히지 않고
+// 같은 비행경로는 compare-and-set 한 번으로 허가 여부가 정해진다.
+class StripedControlTower implements ControlTower{
+
+    private final ConcurrentMap<String,AtomicBoolean> flightPathStateMap = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean canTakeoff(String flightPath) {
+        if(!flightPathState(flightPath).compareAndSet(false, true)){
+            EventLog.println("관제탑 : 사용중인 비행경로. 다른 곳을 요청하십시오.");
             return false;
         }
-        System.out.println("관제탑 : 이륙 허가.");
-        unavailableFlightPathList.add(flightPath);
+        EventLog.println("관제탑 : 이륙 허가.");
+        return true;
+    }
+
+    @Override
+    public void release(String flightPath) {
+        AtomicBoolean inUse = flightPathStateMap.get(flightPath);
+        if(inUse != null){
+            inUse.set(false);
+        }
+    }
+
+    private AtomicBoolean flightPathState(String flightPath){
+        AtomicBoolean inUse = flightPathStateMap.get(flightPath);
+        if(inUse != null){
+            return inUse;
+        }
+        return flightPathStateMap.computeIfAbsent(flightPath, key -> new AtomicBoolean());
+    }
+}
+
+// 거절된 이륙 요청을 비행경로별 우선순위 대기열에 넣어 두고, 비행경로가 풀리면 순서대로 허가하는 관제탑.
+// 우선순위가 높은 항공사가 먼저, 같은 우선순위끼리는 먼저 요청한 비행기가 먼저 허가받는다.
+class SchedulingControlTower implements ControlTower{
+
+    private final ConcurrentMap<String,FlightPathSchedule> scheduleMap = new ConcurrentHashMap<>();
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    @Override
+    public boolean canTakeoff(String flightPath) {
+        FlightPathSchedule schedule = scheduleOf(flightPath);
+        synchronized (schedule){
+            if(schedule.inUse){
+                EventLog.println("관제탑 : 사용중인 비행경로. 다른 곳을 요청하십시오.");
+                return false;
+            }
+            schedule.inUse = true;
+        }
+        EventLog.println("관제탑 : 이륙 허가.");
         return true;
     }
 
+    @Override
+    public CompletableFuture<Void> scheduleTakeoff(String flightPath, int priority) {
+        FlightPathSchedule schedule = scheduleOf(flightPath);
+        synchronized (schedule){
+            if(!schedule.inUse){
+                schedule.inUse = true;
+                EventLog.println("관제탑 : 이륙 허가.");
+                return CompletableFuture.completedFuture(null);
+            }
+            WaitingTakeoff waiting = new WaitingTakeoff(priority, requestSequence.getAndIncrement());
+            schedule.waitingQueue.add(waiting);
+            EventLog.println("관제탑 : 사용중인 비행경로. 대기 순서가 되면 알려드리겠습니다.");
+            // 기다리다 취소한 비행기는 바로 대기열에서 뺀다.
+            waiting.grant.whenComplete((result, error) -> {
+                if(waiting.grant.isCancelled()){
+                    synchronized (schedule){
+                        schedule.waitingQueue.remove(waiting);
+                    }
+                }
+            });
+            return waiting.grant;
+        }
+    }
+
+    // 대기 중인 비행기가 있으면 비행경로를 비우지 않고 바로 다음 비행기에게 넘긴다.
+    // 꺼낸 허가가 그사이 취소됐다면 다음 비행기에게 넘기고, 받는 비행기가 없으면 그때 비행경로를 비운다.
+    @Override
+    public void release(String flightPath) {
+        FlightPathSchedule schedule = scheduleMap.get(flightPath);
+        if(schedule == null){
+            return;
+        }
+        while(true){
+            WaitingTakeoff next;
+            synchronized (schedule){
+                next = schedule.waitingQueue.poll();
+                if(next == null){
+                    schedule.inUse = false;
+                    return;
+                }
+            }
+            if(next.grant.complete(null)){
+                EventLog.println("관제탑 : " + flightPath + " 대기 순서였던 비행기에게 이륙을 허가했습니다.");
+                return;
+            }
+        }
+    }
+
+    private FlightPathSchedule scheduleOf(String flightPath){
+        return scheduleMap.computeIfAbsent(flightPath, key -> new FlightPathSchedule());
+    }
+
+    private static class FlightPathSchedule{
+        private boolean inUse;
+        private final PriorityQueue<WaitingTakeoff> waitingQueue = new PriorityQueue<>();
+    }
+
+    private static class WaitingTakeoff implements Comparable<WaitingTakeoff>{
+        private final int priority;
+        private final long sequence;
+        private final CompletableFuture<Void> grant = new CompletableFuture<>();
+
+        WaitingTakeoff(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(WaitingTakeoff other) {
+            if(priority != other.priority){
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
 }
 
 abstract class Airplane{
     protected ControlTower controlTower;
     private String name;
+    private final int priority;
 
     public Airplane(ControlTower controlTower,String name){
+        this(controlTower,name,0);
+    }
+
+    public Airplane(ControlTower controlTower,String name,int priority){
         this.controlTower = controlTower;
         this.name = name;
+        this.priority = priority;
     }
 
     public void requestTakeoff(String flightPath){
-        System.out.println(name+" : 이륙을 요청합니다. " + flightPath);
+        EventLog.println(name+" : 이륙을 요청합니다. " + flightPath);
         if(controlTower.canTakeoff(flightPath)){
-            System.out.println(name+" : 허가 완료. 이륙합니다.");
+            EventLog.println(name+" : 허가 완료. 이륙합니다.");
         }
         else{
-            System.out.println(name+" : 확인했습니다.");
+            EventLog.println(name+" : 확인했습니다.");
         }
     }
+
+    // 다시 요청하며 기다리지 않고, 관제탑이 허가를 내주면 그때 이륙한다.
+    // 돌려받은 예약을 취소하면 관제탑의 대기 순서도 취소하고, 그사이 이미 허가가 났다면 비행경로를 돌려준다.
+    public CompletableFuture<Void> reserveTakeoff(String flightPath){
+        EventLog.println(name+" : 이륙 순서를 요청합니다. " + flightPath);
+        CompletableFuture<Void> grant = controlTower.scheduleTakeoff(flightPath, priority);
+        CompletableFuture<Void> takeoff = grant.thenRun(() -> EventLog.println(name+" : 허가 완료. 이륙합니다."));
+        takeoff.whenComplete((result, error) -> {
+            if(takeoff.isCancelled() && !grant.cancel(false) && !grant.isCompletedExceptionally()){
+                controlTower.release(flightPath);
+            }
+        });
+        return takeoff;
+    }
 }
 
 class JejuairAirplane extends Airplane{
@@ -61,6 +330,10 @@ class JejuairAirplane extends Airplane{
     public JejuairAirplane(ControlTower controlTower,String name) {
         super(controlTower,name);
     }
+
+    public JejuairAirplane(ControlTower controlTower,String name,int priority) {
+        super(controlTower,name,priority);
+    }
 }
 
 class AsianaAirlinesAirplane extends Airplane{
@@ -68,4 +341,78 @@ class AsianaAirlinesAirplane extends Airplane{
     public AsianaAirlinesAirplane(ControlTower controlTower,String name) {
         super(controlTower,name);
     }
-}
\ No newline at end of file
+
+    public AsianaAirlinesAirplane(ControlTower controlTower,String name,int priority) {
+        super(controlTower,name,priority);
+    }
+}
+
+// 여러 스레드가 적은 수의 비행경로를 동시에 요청할 때, 한 비행경로에 두 비행기가 함께 허가받지 않는지 확인한다.
+// 사용법 : java DesignPatterns.BehavioralPatterns.Mediator.StripedControlTowerStressTest [스레드 수] [비행경로 수] [스레드당 요청 수]
+// mvn verify 가 patterns 모듈에서 이 검사를 함께 실행하고, 위반이 있으면 빌드를 실패시킨다.
+class StripedControlTowerStressTest {
+    public static void main(String[] args) throws InterruptedException {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int flightPathCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int requestsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        String[] flightPaths = new String[flightPathCount];
+        for(int i = 0; i < flightPathCount; i++){
+            flightPaths[i] = i + "번 비행로";
+        }
+
+        ControlTower controlTower = new StripedControlTower();
+        AtomicIntegerArray holders = new AtomicIntegerArray(flightPathCount);
+        AtomicLong grantedCount = new AtomicLong();
+        AtomicInteger violationCount = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        EventSink previousSink = EventLog.getSink();
+        EventLog.setSink(new NoOpEventSink());
+        long startNanos;
+        long elapsedNanos;
+        try {
+            Thread[] threads = new Thread[threadCount];
+            for(int t = 0; t < threadCount; t++){
+                int seed = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for(int i = 0; i < requestsPerThread; i++){
+                        int path = (seed + i) % flightPathCount;
+                        if(!controlTower.canTakeoff(flightPaths[path])){
+                            continue;
+                        }
+                        if(holders.incrementAndGet(path) != 1){
+                            violationCount.incrementAndGet();
+                        }
+                        grantedCount.incrementAndGet();
+                        holders.decrementAndGet(path);
+                        controlTower.release(flightPaths[path]);
+                    }
+                });
+                threads[t].start();
+            }
+            startNanos = System.nanoTime();
+            start.countDown();
+            for(Thread thread : threads){
+                thread.join();
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+        } finally {
+            EventLog.setSink(previousSink);
+        }
+
+        long requestCount = (long) threadCount * requestsPerThread;
+        EventLog.println("스레드 " + threadCount + "개, 비행경로 " + flightPathCount + "개, 요청 " + requestCount + "건");
+        EventLog.println("허가 " + grantedCount.get() + "건, 중복 허가 " + violationCount.get() + "건, "
+                + (requestCount * 1_000_000_000L / Math.max(elapsedNanos, 1)) + " 요청/초");
+        if(violationCount.get() != 0){
+            throw new IllegalStateException("같은 비행경로에 두 비행기가 함께 허가받았습니다 : " + violationCount.get() + "건");
+        }
+    }
+}
@@ -1,5 +1,23 @@
 package DesignPatterns.BehavioralPatterns.Memento;
 
+import DesignPatterns.Common.EventLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
 public class MementoExample {
     public static void main(String[] args) {
         Game game = new Game();
@@ -15,6 +33,34 @@ public class MementoExample {
         game.lookStatus();
         game.loadGame(1);
         game.lookStatus();
+
+        game.autoSave();
+        game.levelUp();
+        game.autoSave();
+        game.warp("카카리코 마을");
+        game.autoSave();
+        game.start();
+        game.loadAutoSave();
+        game.lookStatus();
+
+        Path slotFile = Path.of(System.getProperty("java.io.tmpdir"), "memento-save-slots.dat");
+        try (MappedSaveLoader mappedSaveLoader = new MappedSaveLoader(slotFile, 1000);
+             Game persistentGame = new Game(mappedSaveLoader)) {
+            persistentGame.start();
+            persistentGame.warp("하이랄 성");
+            persistentGame.saveGame(999);
+            persistentGame.start();
+            persistentGame.loadGame(999);
+            persistentGame.lookStatus();
+
+            persistentGame.levelUp();
+            persistentGame.saveGameAsync(998);
+            persistentGame.levelUp();
+            persistentGame.saveGameAsync(998);
+            persistentGame.flushSaves();
+            persistentGame.loadGame(998);
+            persistentGame.lookStatus();
+        }
     }
 }
 
@@ -43,31 +89,399 @@ class SaveFile{
     }
 }
 
+// Memento - 직전 자동 저장과 달라진 필드만 담는 증분 세이브
+// 바뀐 필드마다 그 값 하나만 담은 기록을 이어 붙이고, 전체 값은 압축 기준이 되는 기록에만 둔다.
+// 기록이 일정 개수 이상 쌓이면 전체 상태를 담은 기록을 다시 만들어, 불러올 때 거슬러 올라가는 길이를 제한한다.
+abstract class DeltaSaveFile{
+    final DeltaSaveFile previous;
+    private final int chainLength;
+
+    private DeltaSaveFile(DeltaSaveFile previous) {
+        this.previous = previous;
+        this.chainLength = previous == null ? 1 : previous.chainLength + 1;
+    }
+
+    // 바뀐 필드가 없으면 새로 만들지 않고 직전 세이브를 그대로 돌려준다.
+    public static DeltaSaveFile next(DeltaSaveFile previous, String playerLocation, int playerLevel, int playerHp, int compactInterval){
+        if(previous == null || previous.chainLength >= compactInterval){
+            return new BaseSave(playerLocation, playerLevel, playerHp);
+        }
+        DeltaSaveFile latest = previous;
+        if(!playerLocation.equals(previous.getPlayerLocation())){
+            latest = new LocationDelta(latest, playerLocation);
+        }
+        if(playerLevel != previous.getPlayerLevel()){
+            latest = new LevelDelta(latest, playerLevel);
+        }
+        if(playerHp != previous.getPlayerHp()){
+            latest = new HpDelta(latest, playerHp);
+        }
+        return latest;
+    }
+
+    public abstract String getPlayerLocation();
+
+    public abstract int getPlayerLevel();
+
+    public abstract int getPlayerHp();
+
+    // 압축 기준부터 이 세이브까지 이어진 기록 수
+    public int getChainLength() {
+        return chainLength;
+    }
+
+    public SaveFile toSaveFile(){
+        return new SaveFile(getPlayerLocation(), getPlayerLevel(), getPlayerHp());
+    }
+
+    // 압축 기준 - 전체 상태
+    private static final class BaseSave extends DeltaSaveFile{
+        private final String playerLocation;
+        private final int playerLevel;
+        private final int playerHp;
+
+        BaseSave(String playerLocation, int playerLevel, int playerHp) {
+            super(null);
+            this.playerLocation = playerLocation;
+            this.playerLevel = playerLevel;
+            this.playerHp = playerHp;
+        }
+
+        @Override
+        public String getPlayerLocation() {
+            return playerLocation;
+        }
+
+        @Override
+        public int getPlayerLevel() {
+            return playerLevel;
+        }
+
+        @Override
+        public int getPlayerHp() {
+            return playerHp;
+        }
+    }
+
+    private static final class LocationDelta extends DeltaSaveFile{
+        private final String playerLocation;
+
+        LocationDelta(DeltaSaveFile previous, String playerLocation) {
+            super(previous);
+            this.playerLocation = playerLocation;
+        }
+
+        @Override
+        public String getPlayerLocation() {
+            return playerLocation;
+        }
+
+        @Override
+        public int getPlayerLevel() {
+            return previous.getPlayerLevel();
+        }
+
+        @Override
+        public int getPlayerHp() {
+            return previous.getPlayerHp();
+        }
+    }
+
+    private static final class LevelDelta extends DeltaSaveFile{
+        private final int playerLevel;
+
+        LevelDelta(DeltaSaveFile previous, int playerLevel) {
+            super(previous);
+            this.playerLevel = playerLevel;
+        }
+
+        @Override
+        public String getPlayerLocation() {
+            return previous.getPlayerLocation();
+        }
+
+        @Override
+        public int getPlayerLevel() {
+            return playerLevel;
+        }
+
+        @Override
+        public int getPlayerHp() {
+            return previous.getPlayerHp();
+        }
+    }
+
+    private static final class HpDelta extends DeltaSaveFile{
+        private final int playerHp;
+
+        HpDelta(DeltaSaveFile previous, int playerHp) {
+            super(previous);
+            this.playerHp = playerHp;
+        }
+
+        @Override
+        public String getPlayerLocation() {
+            return previous.getPlayerLocation();
+        }
+
+        @Override
+        public int getPlayerLevel() {
+            return previous.getPlayerLevel();
+        }
+
+        @Override
+        public int getPlayerHp() {
+            return playerHp;
+        }
+    }
+}
+
 // Caretaker
 class SaveLoader{
 
     public SaveFile[] saveFileSlot = new SaveFile[3];
+    private DeltaSaveFile latestAutoSave;
+
+    public void autoSave(DeltaSaveFile deltaSaveFile){
+        latestAutoSave = deltaSaveFile;
+    }
+
+    public DeltaSaveFile loadAutoSave(){
+        return latestAutoSave;
+    }
 
     public void saveFile(int saveSlot,SaveFile saveFile){
         saveFileSlot[saveSlot] = saveFile;
-        System.out.println("System : " + saveSlot+"번 슬롯에 저장 완료!");
+        EventLog.println("System : " + saveSlot+"번 슬롯에 저장 완료!");
     }
 
     public SaveFile loadSaveFile(int saveSlot){
-        System.out.println("System : " + saveSlot+"번 세이브 불러오기중...");
+        EventLog.println("System : " + saveSlot+"번 세이브 불러오기중...");
         return saveFileSlot[saveSlot];
     }
 }
 
+// Caretaker - 세이브 슬롯을 메모리 맵 파일에 고정 크기로 저장한다.
+// 슬롯마다 기록 칸이 두 개 있어, 저장은 항상 오래된 칸에 한다. 저장 중에 프로세스가 죽어도
+// 체크섬이 맞는 다른 칸이 남아 있으므로 직전 세이브를 불러올 수 있다.
+class MappedSaveLoader extends SaveLoader implements AutoCloseable{
+    private static final int RECORD_SIZE = 64;
+    private static final int SLOT_SIZE = RECORD_SIZE * 2;
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int LEVEL_OFFSET = 8;
+    private static final int HP_OFFSET = 12;
+    private static final int LOCATION_LENGTH_OFFSET = 16;
+    private static final int LOCATION_OFFSET = 18;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - Integer.BYTES;
+    private static final int MAX_LOCATION_BYTES = CHECKSUM_OFFSET - LOCATION_OFFSET;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer slotBuffer;
+    private final int slotCount;
+
+    public MappedSaveLoader(Path slotFile, int slotCount) {
+        if(slotCount <= 0 || (long) slotCount * SLOT_SIZE > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("슬롯 개수가 올바르지 않습니다 : " + slotCount);
+        }
+        this.slotCount = slotCount;
+        try {
+            this.channel = FileChannel.open(slotFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.slotBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slotCount * SLOT_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void saveFile(int saveSlot, SaveFile saveFile) {
+        checkSlot(saveSlot);
+        byte[] location = saveFile.getPlayerLocation().getBytes(StandardCharsets.UTF_8);
+        if(location.length > MAX_LOCATION_BYTES){
+            throw new IllegalArgumentException("지역 이름이 너무 깁니다 : " + saveFile.getPlayerLocation());
+        }
+
+        int first = saveSlot * SLOT_SIZE;
+        int second = first + RECORD_SIZE;
+        long firstSequence = validSequence(first);
+        long secondSequence = validSequence(second);
+        int target = firstSequence <= secondSequence ? first : second;
+
+        ByteBuffer record = slotBuffer.duplicate();
+        record.position(target + LOCATION_OFFSET);
+        record.put(location);
+        slotBuffer.putInt(target + LEVEL_OFFSET, saveFile.getPlayerLevel());
+        slotBuffer.putInt(target + HP_OFFSET, saveFile.getPlayerHp());
+        slotBuffer.putShort(target + LOCATION_LENGTH_OFFSET, (short) location.length);
+        slotBuffer.putLong(target + SEQUENCE_OFFSET, Math.max(firstSequence, secondSequence) + 1);
+        slotBuffer.putInt(target + CHECKSUM_OFFSET, checksum(target));
+        EventLog.println("System : " + saveSlot+"번 슬롯에 저장 완료!");
+    }
+
+    // 슬롯을 불러올 때 그 슬롯의 기록만 읽는다.
+    @Override
+    public SaveFile loadSaveFile(int saveSlot) {
+        checkSlot(saveSlot);
+        EventLog.println("System : " + saveSlot+"번 세이브 불러오기중...");
+        int first = saveSlot * SLOT_SIZE;
+        int second = first + RECORD_SIZE;
+        long firstSequence = validSequence(first);
+        long secondSequence = validSequence(second);
+        if(firstSequence == 0 && secondSequence == 0){
+            return null;
+        }
+        int latest = firstSequence >= secondSequence ? first : second;
+
+        byte[] location = new byte[slotBuffer.getShort(latest + LOCATION_LENGTH_OFFSET)];
+        slotBuffer.get(latest + LOCATION_OFFSET, location);
+        return new SaveFile(new String(location, StandardCharsets.UTF_8),
+                slotBuffer.getInt(latest + LEVEL_OFFSET), slotBuffer.getInt(latest + HP_OFFSET));
+    }
+
+    @Override
+    public void close() {
+        try {
+            slotBuffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 체크섬이 맞는 기록의 순번. 비어 있거나 쓰다 만 기록은 0
+    private long validSequence(int record){
+        long sequence = slotBuffer.getLong(record + SEQUENCE_OFFSET);
+        int length = slotBuffer.getShort(record + LOCATION_LENGTH_OFFSET);
+        if(sequence <= 0 || length < 0 || length > MAX_LOCATION_BYTES){
+            return 0;
+        }
+        return slotBuffer.getInt(record + CHECKSUM_OFFSET) == checksum(record) ? sequence : 0;
+    }
+
+    private int checksum(int record){
+        CRC32 crc32 = new CRC32();
+        crc32.update(slotBuffer.slice(record, CHECKSUM_OFFSET));
+        return (int) crc32.getValue();
+    }
+
+    private void checkSlot(int saveSlot){
+        if(saveSlot < 0 || saveSlot >= slotCount){
+            throw new IllegalArgumentException("없는 세이브 슬롯입니다 : " + saveSlot);
+        }
+    }
+}
+
+// Caretaker - 세이브를 백그라운드 스레드 하나에서 순서대로 저장한다.
+// 아직 저장되지 않은 슬롯에 다시 저장하면 기존 요청에 합쳐져, 가장 최근 세이브만 저장된다.
+class AsyncSaveWriter implements AutoCloseable{
+    private final SaveLoader saveLoader;
+    private final ExecutorService saveExecutor;
+    private final ConcurrentMap<Integer,PendingSave> pendingSaveMap = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public AsyncSaveWriter(SaveLoader saveLoader) {
+        this.saveLoader = saveLoader;
+        this.saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "async-save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 닫힌 뒤의 저장 요청은 실패한 결과로 돌려준다.
+    public CompletableFuture<Void> save(int saveSlot, SaveFile saveFile){
+        if(closed){
+            return CompletableFuture.failedFuture(closedException());
+        }
+        CompletableFuture<Void> rejected = new CompletableFuture<>();
+        PendingSave pendingSave = pendingSaveMap.compute(saveSlot, (slot, pending) -> {
+            if(pending != null){
+                pending.saveFile = saveFile;
+                return pending;
+            }
+            PendingSave created = new PendingSave(saveFile);
+            try {
+                saveExecutor.execute(() -> write(slot, created));
+            } catch (RejectedExecutionException e) {
+                rejected.completeExceptionally(closedException());
+                return null;
+            }
+            return created;
+        });
+        return pendingSave != null ? pendingSave.result : rejected;
+    }
+
+    // 지금까지 맡긴 저장이 모두 끝날 때까지 기다린다. 저장 스레드는 요청 순서대로 처리하므로 마지막에 넣은 표식까지 기다리면 된다.
+    public void flush(){
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        try {
+            saveExecutor.execute(() -> barrier.complete(null));
+        } catch (RejectedExecutionException e) {
+            awaitTermination();
+            return;
+        }
+        barrier.join();
+    }
+
+    // 새 저장은 더 받지 않고, 이미 맡긴 저장을 모두 마친 뒤 저장 스레드를 정리한다.
+    @Override
+    public void close(){
+        closed = true;
+        saveExecutor.shutdown();
+        awaitTermination();
+    }
+
+    private void awaitTermination(){
+        try {
+            while(!saveExecutor.awaitTermination(1, TimeUnit.SECONDS)){
+                // 남은 저장이 끝날 때까지 기다린다.
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static IllegalStateException closedException(){
+        return new IllegalStateException("저장기가 닫혀 더 이상 저장할 수 없습니다.");
+    }
+
+    private void write(int saveSlot, PendingSave pendingSave){
+        // 목록에서 빼낸 뒤에는 더 이상 합쳐지지 않으므로, 이때의 세이브가 최종본이다.
+        pendingSaveMap.remove(saveSlot, pendingSave);
+        try {
+            saveLoader.saveFile(saveSlot, pendingSave.saveFile);
+            pendingSave.result.complete(null);
+        } catch (RuntimeException e) {
+            pendingSave.result.completeExceptionally(e);
+        }
+    }
+
+    private static class PendingSave{
+        private volatile SaveFile saveFile;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingSave(SaveFile saveFile) {
+            this.saveFile = saveFile;
+        }
+    }
+}
+
 // Originator
-class Game{
+class Game implements AutoCloseable{
+    private static final int AUTO_SAVE_COMPACT_INTERVAL = 16;
+
     private String playerLocation;
     private int playerLevel;
     private int playerHp;
     private final SaveLoader saveLoader;
+    private AsyncSaveWriter asyncSaveWriter;
 
     public Game() {
-        this.saveLoader = new SaveLoader();
+        this(new SaveLoader());
+    }
+
+    public Game(SaveLoader saveLoader) {
+        this.saveLoader = saveLoader;
     }
 
     public void start() {
@@ -77,36 +491,80 @@ class Game{
     }
 
     public void warp(String area) {
-        System.out.println("☆ " + area + "이동중...");
+        EventLog.println("☆ " + area + "이동중...");
         this.playerLocation = area;
     }
 
     public void levelUp(){
-        System.out.println("★ 레벨업!");
+        EventLog.println("★ 레벨업!");
         playerLevel++;
         playerHp += 50;
     }
 
     public void lookStatus(){
-        System.out.println("------현재 상태------");
-        System.out.println("현재 지역 : "+playerLocation);
-        System.out.println("현재 레벨 : "+playerLevel);
-        System.out.println("현재 HP : "+playerHp);
-        System.out.println("--------------------");
+        EventLog.println("------현재 상태------");
+        EventLog.println("현재 지역 : "+playerLocation);
+        EventLog.println("현재 레벨 : "+playerLevel);
+        EventLog.println("현재 HP : "+playerHp);
+        EventLog.println("--------------------");
     }
 
     public void saveGame(int saveSlot){
-        System.out.println("System : 현재 진행 상황을 " + saveSlot + "번 슬롯에 저장할게요!");
+        EventLog.println("System : 현재 진행 상황을 " + saveSlot + "번 슬롯에 저장할게요!");
         SaveFile savefile = new SaveFile(this.playerLocation,this.playerLevel,this.playerHp);
         saveLoader.saveFile(saveSlot,savefile);
     }
 
+    // 현재 상태만 붙잡아 두고, 실제 저장은 백그라운드에서 한다.
+    public CompletableFuture<Void> saveGameAsync(int saveSlot){
+        if(asyncSaveWriter == null){
+            asyncSaveWriter = new AsyncSaveWriter(saveLoader);
+        }
+        SaveFile savefile = new SaveFile(this.playerLocation,this.playerLevel,this.playerHp);
+        return asyncSaveWriter.save(saveSlot,savefile);
+    }
+
+    // 백그라운드에 맡긴 저장이 모두 파일에 쓰일 때까지 기다린다.
+    public void flushSaves(){
+        if(asyncSaveWriter != null){
+            asyncSaveWriter.flush();
+        }
+    }
+
+    // 남은 백그라운드 저장을 마치고 저장 스레드를 정리한다. 세이브 로더는 만든 쪽에서 닫는다.
+    @Override
+    public void close(){
+        if(asyncSaveWriter != null){
+            asyncSaveWriter.close();
+            asyncSaveWriter = null;
+        }
+    }
+
     public void loadGame(int saveSlot){
-        System.out.println("System : " + saveSlot+"번 세이브 슬롯을 불러올게요!");
+        EventLog.println("System : " + saveSlot+"번 세이브 슬롯을 불러올게요!");
         SaveFile savefile = saveLoader.loadSaveFile(saveSlot);
         this.playerLocation = savefile.getPlayerLocation();
         this.playerLevel = savefile.getPlayerLevel();
         this.playerHp = savefile.getPlayerHp();
-        System.out.println("System : 불러오기 완료!");
+        EventLog.println("System : 불러오기 완료!");
+    }
+
+    // 직전 자동 저장과 달라진 부분만 저장한다.
+    public void autoSave(){
+        DeltaSaveFile latest = saveLoader.loadAutoSave();
+        saveLoader.autoSave(DeltaSaveFile.next(latest, this.playerLocation, this.playerLevel, this.playerHp, AUTO_SAVE_COMPACT_INTERVAL));
+    }
+
+    public void loadAutoSave(){
+        EventLog.println("System : 자동 저장을 불러올게요!");
+        DeltaSaveFile autoSave = saveLoader.loadAutoSave();
+        if(autoSave == null){
+            EventLog.println("System : 자동 저장이 없습니다.");
+            return;
+        }
+        this.playerLocation = autoSave.getPlayerLocation();
+        this.playerLevel = autoSave.getPlayerLevel();
+        this.playerHp = autoSave.getPlayerHp();
+        EventLog.println("System : 불러오기 완료!");
     }
 }
\ No newline at end of file
@@ -1,6 +1,24 @@
 package BehavioralPatterns.Observer;
 
+import DesignPatterns.Common.EventLog;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class ObserverExample {
     public static void main(String[] args) {
@@ -13,6 +31,27 @@ public class ObserverExample {
         javaYoutuber.subscribe(sujin);
 
         javaYoutuber.uploadNewVideo("자바 기초");
+
+        ParallelDeliveryEngine deliveryEngine = new ParallelDeliveryEngine(4, 1024, 100, TimeUnit.MILLISECONDS);
+        javaYoutuber.setDeliveryEngine(deliveryEngine);
+        DeliveryReport report = javaYoutuber.publishNewVideo("자바 심화").join();
+        EventLog.println(report.toString());
+        deliveryEngine.shutdown();
+
+        Subscriber jihoon = new Subscriber("지훈", true);
+        javaYoutuber.subscribe(jihoon);
+        javaYoutuber.enableDigest(3, 1, TimeUnit.SECONDS);
+        javaYoutuber.uploadNewVideo("스트림 API");
+        javaYoutuber.uploadNewVideo("람다");
+        javaYoutuber.uploadNewVideo("제네릭");
+        javaYoutuber.disableDigest();
+
+        VideoEventBus eventBus = new VideoEventBus(4, 1024, BackpressurePolicy.DROP_OLDEST, 1);
+        eventBus.subscribe("자바 채널", minsu);
+        eventBus.subscribe("스프링 채널", sujin);
+        eventBus.publish("자바 채널", "JVM 구조");
+        eventBus.publish("스프링 채널", "빈 생명주기");
+        eventBus.close();
     }
 }
 
@@ -24,26 +63,178 @@ interface Subject{
 
 interface Observer{
     void newVideo(String videoName);
+
+    // 묶음 알림을 원하는 구독자는 새 영상들을 한 번에 받는다.
+    default void newVideos(List<String> videoNames){
+        for(String videoName : videoNames){
+            newVideo(videoName);
+        }
+    }
+
+    default boolean prefersDigest(){
+        return false;
+    }
 }
 
 class Youtuber implements Subject{
 
-    private List<Observer> subscriberList = new ArrayList<>();
+    private final SubscriberRegistry subscriberRegistry = new SubscriberRegistry();
+    private ParallelDeliveryEngine deliveryEngine;
+    private volatile VideoDigest videoDigest;
+
+    // 묶음 알림을 원하는 구독자에게는 영상이 maxSize 개 모이거나 window 가 지나면 한 번에 알린다.
+    public void enableDigest(int maxSize, long window, TimeUnit unit) {
+        disableDigest();
+        videoDigest = new VideoDigest(maxSize, window, unit, this::deliverDigest);
+    }
+
+    // 모아 둔 영상은 끄기 전에 모두 알린다.
+    public void disableDigest() {
+        VideoDigest current = videoDigest;
+        videoDigest = null;
+        if(current != null){
+            current.close();
+        }
+    }
+
+    private void deliverDigest(List<String> videoNames) {
+        for(Observer subscriber : subscriberRegistry.snapshot()){
+            if(subscriber.prefersDigest()){
+                subscriber.newVideos(videoNames);
+            }
+        }
+    }
+
+    public void setDeliveryEngine(ParallelDeliveryEngine deliveryEngine) {
+        this.deliveryEngine = deliveryEngine;
+    }
+
+    // 구독자 목록을 나눠 병렬로 알림을 보내고, 전달 결과를 돌려준다.
+    public CompletableFuture<DeliveryReport> publishNewVideo(String videoName) {
+        if(deliveryEngine == null){
+            throw new IllegalStateException("전달 엔진이 설정되지 않았습니다.");
+        }
+        return deliveryEngine.deliver(Arrays.asList(subscriberRegistry.snapshot()), videoName);
+    }
 
     @Override
     public void subscribe(Observer observer) {
-        subscriberList.add(observer);
+        subscriberRegistry.add(observer);
     }
 
     @Override
     public void subscribeCancel(Observer observer) {
-        subscriberList.remove(observer);
+        subscriberRegistry.remove(observer);
     }
 
     @Override
     public void uploadNewVideo(String videoName) {
-        for(Observer subscriber : subscriberList){
-            subscriber.newVideo(videoName);
+        VideoDigest digest = videoDigest;
+        for(Observer subscriber : subscriberRegistry.snapshot()){
+            if(digest == null || !subscriber.prefersDigest()){
+                subscriber.newVideo(videoName);
+            }
+        }
+        if(digest != null){
+            digest.add(videoName);
+        }
+    }
+}
+
+// 구독/구독 취소가 잦아도 O(1)로 처리하는 구독자 목록.
+// 알림은 목록의 스냅샷을 순회하므로, 알림 중에 구독해도 예외가 나지 않고 구독하는 쪽도 기다리지 않는다.
+class SubscriberRegistry{
+    private static final Observer[] EMPTY = new Observer[0];
+    private static final int MAX_COPY_ATTEMPTS = 3;
+
+    private Observer[] observers = new Observer[16];
+    private int size;
+    private final Map<Observer,Integer> indexMap = new IdentityHashMap<>();
+    private volatile long version; // add/remove 가 잠금 안에서만 올린다
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, EMPTY));
+
+    public synchronized boolean add(Observer observer){
+        if(indexMap.containsKey(observer)){
+            return false;
+        }
+        if(size == observers.length){
+            observers = Arrays.copyOf(observers, size * 2);
+        }
+        observers[size] = observer;
+        indexMap.put(observer, size);
+        size++;
+        version++;
+        return true;
+    }
+
+    // 지운 자리에 마지막 구독자를 옮겨 채운다. 그래서 구독 순서는 유지되지 않는다.
+    public synchronized boolean remove(Observer observer){
+        Integer index = indexMap.remove(observer);
+        if(index == null){
+            return false;
+        }
+        size--;
+        Observer last = observers[size];
+        observers[size] = null;
+        if(index != size){
+            observers[index] = last;
+            indexMap.put(last, index);
+        }
+        version++;
+        return true;
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    // 변경이 없었다면 이전 스냅샷을 그대로 돌려준다. 돌려받은 배열은 수정하면 안 된다.
+    // 복사는 잠금 밖에서 하고, 복사하는 동안 add/remove 가 끼어들었으면 다시 복사한다.
+    // 변경이 계속 몰려 MAX_COPY_ATTEMPTS 번 모두 실패하면 그때만 잠금 안에서 O(n) 복사를 한다.
+    public Observer[] snapshot(){
+        Snapshot current = snapshot.get();
+        if(current.version == version){
+            return current.observers;
+        }
+        for(int attempt = 0; attempt < MAX_COPY_ATTEMPTS; attempt++){
+            Observer[] source;
+            int length;
+            long sourceVersion;
+            synchronized (this){
+                source = observers;
+                length = size;
+                sourceVersion = version;
+            }
+            Observer[] copy = Arrays.copyOf(source, length);
+            synchronized (this){
+                if(version != sourceVersion){
+                    continue;
+                }
+            }
+            return publish(new Snapshot(sourceVersion, copy));
+        }
+        synchronized (this){
+            return publish(new Snapshot(version, Arrays.copyOf(observers, size)));
+        }
+    }
+
+    // 더 새로운 스냅샷이 이미 올라가 있으면 덮어쓰지 않는다.
+    private Observer[] publish(Snapshot built){
+        while(true){
+            Snapshot published = snapshot.get();
+            if(published.version >= built.version || snapshot.compareAndSet(published, built)){
+                return built.observers;
+            }
+        }
+    }
+
+    private static final class Snapshot{
+        private final long version;
+        private final Observer[] observers;
+
+        private Snapshot(long version, Observer[] observers) {
+            this.version = version;
+            this.observers = observers;
         }
     }
 }
@@ -51,13 +242,535 @@ class Youtuber implements Subject{
 class Subscriber implements Observer{
 
     private String name;
+    private final boolean digest;
 
     public Subscriber(String name){
+        this(name, false);
+    }
+
+    public Subscriber(String name, boolean digest){
         this.name = name;
+        this.digest = digest;
     }
 
     @Override
     public void newVideo(String videoName) {
-        System.out.println(name+"님의 구독 채널 새 영상 : "+videoName);
+        EventLog.println(name+"님의 구독 채널 새 영상 : "+videoName);
+    }
+
+    @Override
+    public void newVideos(List<String> videoNames) {
+        EventLog.println(name+"님의 구독 채널 새 영상 "+videoNames.size()+"개 : "+String.join(", ", videoNames));
+    }
+
+    @Override
+    public boolean prefersDigest() {
+        return digest;
+    }
+}
+
+// 새 영상 이름을 모아 두었다가, maxSize 개가 되거나 첫 영상이 들어온 뒤 window 가 지나면 한 번에 넘긴다.
+class VideoDigest{
+    private final int maxSize;
+    private final long windowNanos;
+    private final Consumer<List<String>> flushTarget;
+    private final ScheduledExecutorService timer;
+    private List<String> bufferedVideoNames = new ArrayList<>();
+    private long window;                    // 버퍼를 비울 때마다 1 씩 늘어나는 창 번호
+    private ScheduledFuture<?> windowTimer; // 지금 창의 시간 제한 타이머
+
+    public VideoDigest(int maxSize, long window, TimeUnit unit, Consumer<List<String>> flushTarget) {
+        if(maxSize <= 0 || window <= 0){
+            throw new IllegalArgumentException("maxSize, window 는 1 이상이어야 합니다.");
+        }
+        this.maxSize = maxSize;
+        this.windowNanos = unit.toNanos(window);
+        this.flushTarget = flushTarget;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "video-digest-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void add(String videoName){
+        List<String> full = null;
+        synchronized (this){
+            bufferedVideoNames.add(videoName);
+            if(bufferedVideoNames.size() >= maxSize){
+                full = takeBuffered();
+            }else if(bufferedVideoNames.size() == 1){
+                long openedWindow = window;
+                windowTimer = timer.schedule(() -> flushWindow(openedWindow), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if(full != null){
+            flushTarget.accept(full);
+        }
+    }
+
+    public void flush(){
+        List<String> buffered;
+        synchronized (this){
+            if(bufferedVideoNames.isEmpty()){
+                return;
+            }
+            buffered = takeBuffered();
+        }
+        flushTarget.accept(buffered);
+    }
+
+    // 타이머가 이미 실행 중이라 취소되지 않았더라도, 그 사이 창이 바뀌었다면 새 창을 일찍 비우지 않는다.
+    private void flushWindow(long expiredWindow){
+        List<String> buffered;
+        synchronized (this){
+            if(window != expiredWindow || bufferedVideoNames.isEmpty()){
+                return;
+            }
+            buffered = takeBuffered();
+        }
+        flushTarget.accept(buffered);
+    }
+
+    public void close(){
+        timer.shutdownNow();
+        flush();
+    }
+
+    private List<String> takeBuffered(){
+        if(windowTimer != null){
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+        window++;
+        List<String> buffered = bufferedVideoNames;
+        bufferedVideoNames = new ArrayList<>();
+        return Collections.unmodifiableList(buffered);
+    }
+}
+
+// 구독자 목록을 일정 크기로 나눠, 나눈 조각을 최대 parallelism 개의 작업자가 동시에 전달한다.
+// 한 구독자가 예외를 던져도 다른 구독자에게는 계속 전달한다.
+// 구독자마다 deliver() 를 부른 때부터 제한 시간이 있고, 그 안에 전달을 마치지 못한 구독자만 지연으로 집계한다.
+// 한 구독자가 제한 시간의 1/4 이상 작업자를 붙잡고 있으면, 그 작업자는 그 구독자에게 남겨 두고
+// 조각의 나머지는 새 작업자가 이어서 전달한다. 멈춘 구독자가 있어도 다른 구독자와 이후 전달은 기다리지 않는다.
+class ParallelDeliveryEngine{
+    private final ExecutorService workerExecutor;
+    private final ScheduledExecutorService watchdog;
+    private final Queue<Slice> sliceQueue = new ConcurrentLinkedQueue<>();
+    private final Set<Worker> activeWorkers = ConcurrentHashMap.newKeySet();
+    private final Semaphore workerPermits;
+    private final int sliceSize;
+    private final long timeoutNanos;
+    private final long stallNanos;
+
+    public ParallelDeliveryEngine(int parallelism, int sliceSize, long timeout, TimeUnit unit) {
+        if(parallelism <= 0 || sliceSize <= 0 || timeout <= 0){
+            throw new IllegalArgumentException("parallelism, sliceSize, timeout 은 1 이상이어야 합니다.");
+        }
+        // 멈춘 작업자는 풀에 돌려받지 못하므로, 작업자 수는 스레드 수가 아니라 허가 수로 제한한다.
+        this.workerExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delivery-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workerPermits = new Semaphore(parallelism);
+        this.sliceSize = sliceSize;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.stallNanos = Math.max(1, timeoutNanos / 4);
+        long checkNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), stallNanos / 2);
+        watchdog.scheduleAtFixedRate(this::handOffStalledWorkers, checkNanos, checkNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public CompletableFuture<DeliveryReport> deliver(List<Observer> observerList, String videoName){
+        Delivery delivery = new Delivery(observerList, videoName);
+        if(delivery.observerCount == 0){
+            delivery.complete();
+            return delivery.result;
+        }
+        // 제한 시간이 지나면 끝나지 않은 구독자를 기다리지 않고 결과를 낸다.
+        watchdog.schedule(delivery::complete, timeoutNanos, TimeUnit.NANOSECONDS);
+        for(int from = 0; from < delivery.observerCount; from += sliceSize){
+            sliceQueue.offer(new Slice(delivery, from, Math.min(from + sliceSize, delivery.observerCount)));
+        }
+        startWorkers();
+        return delivery.result;
+    }
+
+    public void shutdown(){
+        watchdog.shutdownNow();
+        workerExecutor.shutdown();
+    }
+
+    private void startWorkers(){
+        while(!sliceQueue.isEmpty() && workerPermits.tryAcquire()){
+            Worker worker = new Worker();
+            activeWorkers.add(worker);
+            workerExecutor.execute(worker);
+        }
+    }
+
+    // 한 구독자에게 오래 붙잡힌 작업자는 떼어 내고, 조각의 남은 부분을 다시 대기열에 넣는다.
+    private void handOffStalledWorkers(){
+        long now = System.nanoTime();
+        for(Worker worker : activeWorkers){
+            Slice remainder = worker.abandonIfStalled(now);
+            if(remainder == null){
+                continue;
+            }
+            activeWorkers.remove(worker);
+            if(remainder.from < remainder.to){
+                sliceQueue.offer(remainder);
+            }
+            workerPermits.release();
+        }
+        startWorkers();
+    }
+
+    private class Worker implements Runnable{
+        private Slice slice;
+        private int current = -1;   // 전달 중인 구독자 위치. 없으면 -1
+        private long callStart;
+        private boolean abandoned;
+
+        @Override
+        public void run() {
+            Slice next;
+            while((next = sliceQueue.poll()) != null){
+                if(!deliverSlice(next)){
+                    // 떼어 낸 작업자의 허가는 감시자가 이미 돌려주었다.
+                    return;
+                }
+            }
+            activeWorkers.remove(this);
+            workerPermits.release();
+            // 나가는 사이에 들어온 조각이 있으면 새 작업자가 이어서 처리한다.
+            startWorkers();
+        }
+
+        // 조각을 모두 전달하면 true, 도중에 떼어 내졌으면 false
+        private boolean deliverSlice(Slice next){
+            for(int i = next.from; i < next.to; i++){
+                synchronized (this){
+                    if(abandoned){
+                        return false;
+                    }
+                    slice = next;
+                    current = i;
+                    callStart = System.nanoTime();
+                }
+                next.delivery.deliverTo(i);
+                synchronized (this){
+                    current = -1;
+                    if(abandoned){
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // 멈춘 것으로 보이면 떼어 내고, 이 작업자가 전달하지 않게 된 나머지 구간을 돌려준다.
+        synchronized Slice abandonIfStalled(long now){
+            if(abandoned || current < 0 || now - callStart < stallNanos){
+                return null;
+            }
+            abandoned = true;
+            return new Slice(slice.delivery, current + 1, slice.to);
+        }
+    }
+
+    private static class Slice{
+        private final Delivery delivery;
+        private final int from;
+        private final int to;
+
+        Slice(Delivery delivery, int from, int to) {
+            this.delivery = delivery;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    // 영상 하나의 전달 상태. 지연 시간은 deliver() 를 부른 때부터 그 구독자에게 전달을 마친 때까지다.
+    private class Delivery{
+        private final List<Observer> observerList;
+        private final String videoName;
+        private final int observerCount;
+        private final long startNanos = System.nanoTime();
+        // 전달을 마친 구독자만 0 보다 큰 값이 기록된다.
+        private final AtomicLongArray latencyNanos;
+        private final AtomicInteger failedCount = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<DeliveryReport> result = new CompletableFuture<>();
+
+        Delivery(List<Observer> observerList, String videoName) {
+            this.observerList = observerList;
+            this.videoName = videoName;
+            this.observerCount = observerList.size();
+            this.latencyNanos = new AtomicLongArray(observerCount);
+            this.remaining = new AtomicInteger(observerCount);
+        }
+
+        void deliverTo(int index){
+            try {
+                observerList.get(index).newVideo(videoName);
+            } catch (RuntimeException e) {
+                failedCount.incrementAndGet();
+            }
+            latencyNanos.set(index, Math.max(1, System.nanoTime() - startNanos));
+            if(remaining.decrementAndGet() == 0){
+                complete();
+            }
+        }
+
+        // 제한 시간 안에 끝나지 않은 구독자는 지연으로 세고, 지연 시간은 적어도 제한 시간만큼 걸린 것으로 기록한다.
+        void complete(){
+            if(result.isDone()){
+                return;
+            }
+            long[] latencySnapshot = new long[observerCount];
+            int timedOutCount = 0;
+            for(int i = 0; i < observerCount; i++){
+                long latency = latencyNanos.get(i);
+                if(latency == 0 || latency > timeoutNanos){
+                    timedOutCount++;
+                    latency = Math.max(latency, timeoutNanos);
+                }
+                latencySnapshot[i] = latency;
+            }
+            result.complete(new DeliveryReport(observerCount, failedCount.get(), timedOutCount, latencySnapshot));
+        }
+    }
+}
+
+class DeliveryReport{
+    private final int observerCount;
+    private final int failedCount;
+    private final int timedOutCount;
+    private final long[] sortedLatencyNanos;
+
+    public DeliveryReport(int observerCount, int failedCount, int timedOutCount, long[] latencyNanos) {
+        this.observerCount = observerCount;
+        this.failedCount = failedCount;
+        this.timedOutCount = timedOutCount;
+        this.sortedLatencyNanos = latencyNanos.clone();
+        Arrays.sort(sortedLatencyNanos);
+    }
+
+    public int getObserverCount() {
+        return observerCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    // percentile 은 0 ~ 100
+    public long latencyPercentileNanos(double percentile){
+        if(sortedLatencyNanos.length == 0){
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1;
+        return sortedLatencyNanos[Math.max(0, Math.min(index, sortedLatencyNanos.length - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return "전달 " + observerCount + "명, 실패 " + failedCount + "명, 지연 " + timedOutCount + "명"
+                + " (p50 " + latencyPercentileNanos(50) + "ns, p99 " + latencyPercentileNanos(99) + "ns)";
+    }
+}
+
+// 이벤트 버스의 파티션 버퍼가 가득 찼을 때의 처리 방식
+enum BackpressurePolicy{
+    BLOCK,        // 자리가 날 때까지 발행하는 쪽이 기다린다.
+    DROP_OLDEST,  // 가장 오래된 이벤트를 버리고 새 이벤트를 넣는다.
+    SAMPLE        // sampleRate 개 중 하나만 가장 오래된 이벤트 대신 넣고, 나머지는 버린다.
+}
+
+// 여러 채널의 새 영상 알림을 모아 전달하는 이벤트 버스.
+// 채널은 이름의 해시로 파티션에 배정되고, 파티션마다 크기가 정해진 링 버퍼와 전달 스레드가 하나씩 있다.
+// 느린 구독자가 있어도 버퍼 크기 이상으로 이벤트가 쌓이지 않는다.
+class VideoEventBus implements AutoCloseable{
+    private final Partition[] partitions;
+    private final ConcurrentMap<String,SubscriberRegistry> channelSubscriberMap = new ConcurrentHashMap<>();
+
+    public VideoEventBus(int partitionCount, int bufferCapacity, BackpressurePolicy policy, int sampleRate) {
+        if(partitionCount <= 0 || bufferCapacity <= 0 || sampleRate <= 0){
+            throw new IllegalArgumentException("partitionCount, bufferCapacity, sampleRate 는 1 이상이어야 합니다.");
+        }
+        this.partitions = new Partition[partitionCount];
+        for(int i = 0; i < partitionCount; i++){
+            partitions[i] = new Partition(i, bufferCapacity, policy, sampleRate);
+            partitions[i].start();
+        }
+    }
+
+    public void subscribe(String channel, Observer observer){
+        channelSubscriberMap.computeIfAbsent(channel, key -> new SubscriberRegistry()).add(observer);
+    }
+
+    public void subscribeCancel(String channel, Observer observer){
+        SubscriberRegistry registry = channelSubscriberMap.get(channel);
+        if(registry != null){
+            registry.remove(observer);
+        }
+    }
+
+    public void publish(String channel, String videoName){
+        partitionOf(channel).offer(new VideoEvent(channel, videoName));
+    }
+
+    public long droppedCount(){
+        long dropped = 0;
+        for(Partition partition : partitions){
+            dropped += partition.droppedCount.get();
+        }
+        return dropped;
+    }
+
+    // 버퍼에 남은 이벤트를 모두 전달한 뒤 멈춘다.
+    @Override
+    public void close(){
+        for(Partition partition : partitions){
+            partition.shutdown();
+        }
+        for(Partition partition : partitions){
+            try {
+                partition.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Partition partitionOf(String channel){
+        return partitions[Math.floorMod(channel.hashCode(), partitions.length)];
+    }
+
+    private void dispatch(VideoEvent event){
+        SubscriberRegistry registry = channelSubscriberMap.get(event.channel);
+        if(registry == null){
+            return;
+        }
+        for(Observer observer : registry.snapshot()){
+            try {
+                observer.newVideo(event.videoName);
+            } catch (RuntimeException e) {
+                EventLog.println("이벤트 버스 : 구독자 알림 실패 - " + e.getMessage());
+            }
+        }
+    }
+
+    private static class VideoEvent{
+        private final String channel;
+        private final String videoName;
+
+        VideoEvent(String channel, String videoName) {
+            this.channel = channel;
+            this.videoName = videoName;
+        }
+    }
+
+    private class Partition extends Thread{
+        private final VideoEvent[] buffer;
+        private final BackpressurePolicy policy;
+        private final int sampleRate;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final AtomicLong droppedCount = new AtomicLong();
+        private int head;
+        private int count;
+        private long overflowCount;
+        private boolean running = true;
+
+        Partition(int index, int capacity, BackpressurePolicy policy, int sampleRate) {
+            super("video-event-bus-" + index);
+            this.buffer = new VideoEvent[capacity];
+            this.policy = policy;
+            this.sampleRate = sampleRate;
+            setDaemon(true);
+        }
+
+        void offer(VideoEvent event){
+            lock.lock();
+            try {
+                if(!running){
+                    throw new IllegalStateException("이벤트 버스가 닫혔습니다.");
+                }
+                if(count == buffer.length){
+                    if(policy == BackpressurePolicy.BLOCK){
+                        while(count == buffer.length && running){
+                            notFull.awaitUninterruptibly();
+                        }
+                        if(!running){
+                            throw new IllegalStateException("이벤트 버스가 닫혔습니다.");
+                        }
+                    }else if(policy == BackpressurePolicy.SAMPLE && overflowCount++ % sampleRate != 0){
+                        droppedCount.incrementAndGet();
+                        return;
+                    }
+                    if(count == buffer.length){
+                        // DROP_OLDEST, SAMPLE : 가장 오래된 이벤트 자리를 비운다.
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        count--;
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                buffer[(head + count) % buffer.length] = event;
+                count++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void shutdown(){
+            lock.lock();
+            try {
+                running = false;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while(true){
+                VideoEvent event;
+                lock.lock();
+                try {
+                    while(count == 0 && running){
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if(count == 0){
+                        return;
+                    }
+                    event = buffer[head];
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                    count--;
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                dispatch(event);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,17 @@
 package DesignPatterns.BehavioralPatterns.Prototype;
 
+import DesignPatterns.Common.EventLog;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
 public class PrototypeExample {
     public static void main(String[] args) {
         Robot firstRobot = new Robot(100,6);
@@ -14,6 +26,28 @@ public class PrototypeExample {
         thirdRobot.setName("서드");
         thirdRobot.status();
 
+        Robot armedRobot = (Robot) firstRobot.clone();
+        armedRobot.setName("무장 로봇");
+        armedRobot.addModule("레이저");
+        Robot armedCopy = (Robot) armedRobot.clone();
+        armedCopy.setName("무장 로봇 복제");
+        armedCopy.addModule("방패");
+        armedRobot.status();
+        armedCopy.status();
+
+        RobotPrototypeRegistry registry = new RobotPrototypeRegistry(64);
+        registry.register("기본형", firstRobot);
+        for(int i = 0; i < 1000; i++){
+            Robot pooledRobot = registry.acquire("기본형");
+            registry.release("기본형", pooledRobot);
+        }
+        registry.metrics();
+
+        RobotBatch robotBatch = RobotBatch.cloneMany(firstRobot, 1_000_000);
+        robotBatch.addSpeed(10);
+        RobotBatch.RobotView lastRobot = robotBatch.view(robotBatch.size() - 1);
+        lastRobot.setName("백만번째");
+        lastRobot.status();
     }
 }
 
@@ -26,10 +60,17 @@ class Robot implements RobotPrototype{
     private int speed;
     private int strength;
     private String name;
+    private List<String> modules = Collections.emptyList();
+    // true 이면 modules 를 다른 로봇과 같이 쓰고 있으므로, 고치기 전에 먼저 복사해야 한다.
+    private boolean modulesShared;
 
+    // 모듈 목록은 복사하지 않고 같이 쓰다가, 어느 한 쪽이 처음 고칠 때 복사한다.
     @Override
     public RobotPrototype clone() {
-        return new Robot(this.speed, this.strength);
+        Robot robot = new Robot(this.speed, this.strength);
+        robot.name = this.name;
+        shareModulesWith(robot);
+        return robot;
     }
 
 
@@ -42,11 +83,277 @@ class Robot implements RobotPrototype{
         this.name = name;
     }
 
+    int getSpeed() {
+        return speed;
+    }
+
+    int getStrength() {
+        return strength;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    public List<String> getModules() {
+        return Collections.unmodifiableList(modules);
+    }
+
+    public void addModule(String module){
+        copyModulesIfShared();
+        modules.add(module);
+    }
+
+    public void removeModule(String module){
+        copyModulesIfShared();
+        modules.remove(module);
+    }
+
+    void shareModulesWith(Robot robot){
+        robot.modules = this.modules;
+        robot.modulesShared = true;
+        this.modulesShared = true;
+    }
+
+    private void copyModulesIfShared(){
+        if(modulesShared || modules == Collections.<String>emptyList()){
+            modules = new ArrayList<>(modules);
+            modulesShared = false;
+        }
+    }
+
+    // 새로 만들지 않고 프로토타입과 같은 값으로 되돌린다.
+    void resetFrom(Robot prototype){
+        this.speed = prototype.speed;
+        this.strength = prototype.strength;
+        this.name = prototype.name;
+        prototype.shareModulesWith(this);
+    }
+
     public void status(){
-        System.out.println("--- 로봇 정보 ---");
-        System.out.println("이름 : "+name);
-        System.out.println("속도 : "+speed);
-        System.out.println("근력 : "+strength+"\n");
+        EventLog.println("--- 로봇 정보 ---");
+        EventLog.println("이름 : "+name);
+        EventLog.println("속도 : "+speed);
+        if(!modules.isEmpty()){
+            EventLog.println("모듈 : "+String.join(", ", modules));
+        }
+        EventLog.println("근력 : "+strength+"\n");
+    }
+
+}
+
+// 이름으로 프로토타입을 등록해 두고, 복제본을 스레드별 풀에서 꺼내 주는 레지스트리.
+// 반납된 로봇은 프로토타입 값으로 되돌려 다시 쓰므로, 풀에 남아 있는 동안은 새로 만들지 않는다.
+class RobotPrototypeRegistry{
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+    private final Map<String,Robot> prototypeMap = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String,ArrayDeque<Robot>>> pool = ThreadLocal.withInitial(HashMap::new);
+    private final int maxPoolSize;
+    private final LongAdder allocatedCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public RobotPrototypeRegistry(int maxPoolSize) {
+        if(maxPoolSize < 0){
+            throw new IllegalArgumentException("maxPoolSize 는 0 이상이어야 합니다 : " + maxPoolSize);
+        }
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public void register(String key, Robot prototype){
+        prototypeMap.put(key, prototype);
     }
 
+    public Robot acquire(String key){
+        Robot prototype = prototypeOf(key);
+        ArrayDeque<Robot> robots = pool.get().get(key);
+        Robot robot = robots == null ? null : robots.pollLast();
+        if(robot != null){
+            reusedCount.increment();
+            return robot;
+        }
+        allocatedCount.increment();
+        long before = currentThreadAllocatedBytes();
+        robot = (Robot) prototype.clone();
+        if(before >= 0){
+            allocatedBytes.add(currentThreadAllocatedBytes() - before);
+        }
+        return robot;
+    }
+
+    // 반납한 로봇은 프로토타입 값으로 되돌려 풀에 넣는다. 반납한 뒤에는 더 이상 사용하면 안 된다.
+    public void release(String key, Robot robot){
+        Robot prototype = prototypeOf(key);
+        ArrayDeque<Robot> robots = pool.get().computeIfAbsent(key, k -> new ArrayDeque<>());
+        if(robots.size() < maxPoolSize){
+            robot.resetFrom(prototype);
+            robots.addLast(robot);
+        }
+    }
+
+    public long getAllocatedCount() {
+        return allocatedCount.sum();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.sum();
+    }
+
+    // 풀에서 찾지 못해 복제할 때 할당한 바이트 수. JVM 이 스레드별 할당량을 재지 못하면 -1 이다.
+    public long getAllocatedBytes() {
+        return THREAD_BEAN == null ? -1 : allocatedBytes.sum();
+    }
+
+    public void metrics(){
+        EventLog.println("--- 로봇 풀 통계 ---");
+        EventLog.println("새로 만든 로봇 : " + getAllocatedCount());
+        EventLog.println("재사용한 로봇 : " + getReusedCount());
+        long bytes = getAllocatedBytes();
+        EventLog.println("복제에 할당한 메모리 : " + (bytes < 0 ? "측정할 수 없음" : bytes + " 바이트") + "\n");
+    }
+
+    private static long currentThreadAllocatedBytes(){
+        return THREAD_BEAN == null ? -1 : THREAD_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    // HotSpot 계열 JVM 에서만 com.sun.management 의 스레드별 할당량을 쓸 수 있다.
+    private static com.sun.management.ThreadMXBean threadBean(){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if(!bean.isThreadAllocatedMemorySupported()){
+            return null;
+        }
+        if(!bean.isThreadAllocatedMemoryEnabled()){
+            bean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return bean;
+    }
+
+    private Robot prototypeOf(String key){
+        Robot prototype = prototypeMap.get(key);
+        if(prototype == null){
+            throw new IllegalArgumentException("등록되지 않은 프로토타입입니다 : " + key);
+        }
+        return prototype;
+    }
+}
+
+// 로봇 여러 대를 객체 하나씩이 아니라 필드별 배열로 한꺼번에 복제해 담는다.
+// 이름은 이름 목록의 번호만 저장하므로, 같은 이름을 가진 로봇들은 문자열 하나를 같이 쓴다.
+// 모듈 목록도 프로토타입의 목록 하나를 배치 전체가 같이 쓴다.
+class RobotBatch{
+    private final int[] speeds;
+    private final int[] strengths;
+    private final int[] nameIds;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String,Integer> nameIdMap = new HashMap<>();
+    // 프로토타입의 복제본. 모듈 목록을 같이 쓰는 상태로 만들어, 프로토타입이 나중에 모듈을 고쳐도 배치의 목록은 그대로 남는다.
+    private final Robot moduleSource;
+
+    private RobotBatch(int size, Robot moduleSource) {
+        this.moduleSource = moduleSource;
+        this.speeds = new int[size];
+        this.strengths = new int[size];
+        this.nameIds = new int[size];
+    }
+
+    public static RobotBatch cloneMany(Robot prototype, int n){
+        if(n < 0){
+            throw new IllegalArgumentException("n 은 0 이상이어야 합니다 : " + n);
+        }
+        RobotBatch robotBatch = new RobotBatch(n, (Robot) prototype.clone());
+        Arrays.fill(robotBatch.speeds, prototype.getSpeed());
+        Arrays.fill(robotBatch.strengths, prototype.getStrength());
+        Arrays.fill(robotBatch.nameIds, robotBatch.nameIdOf(prototype.getName()));
+        return robotBatch;
+    }
+
+    public int size(){
+        return speeds.length;
+    }
+
+    public void addSpeed(int delta){
+        for(int i = 0; i < speeds.length; i++){
+            speeds[i] += delta;
+        }
+    }
+
+    public void addStrength(int delta){
+        for(int i = 0; i < strengths.length; i++){
+            strengths[i] += delta;
+        }
+    }
+
+    public long totalStrength(){
+        long total = 0;
+        for(int strength : strengths){
+            total += strength;
+        }
+        return total;
+    }
+
+    // 필요할 때만 만드는 로봇 한 대의 창. 값은 배치의 배열을 직접 읽고 쓴다.
+    public RobotView view(int index){
+        if(index < 0 || index >= speeds.length){
+            throw new IndexOutOfBoundsException("없는 로봇 번호입니다 : " + index);
+        }
+        return new RobotView(index);
+    }
+
+    private int nameIdOf(String name){
+        Integer nameId = nameIdMap.get(name);
+        if(nameId == null){
+            nameId = names.size();
+            names.add(name);
+            nameIdMap.put(name, nameId);
+        }
+        return nameId;
+    }
+
+    class RobotView{
+        private final int index;
+
+        private RobotView(int index) {
+            this.index = index;
+        }
+
+        public int getSpeed() {
+            return speeds[index];
+        }
+
+        public int getStrength() {
+            return strengths[index];
+        }
+
+        public String getName() {
+            return names.get(nameIds[index]);
+        }
+
+        public List<String> getModules() {
+            return moduleSource.getModules();
+        }
+
+        public void setName(String name){
+            nameIds[index] = nameIdOf(name);
+        }
+
+        public Robot toRobot(){
+            Robot robot = new Robot(getSpeed(), getStrength());
+            robot.setName(getName());
+            moduleSource.shareModulesWith(robot);
+            return robot;
+        }
+
+        public void status(){
+            EventLog.println("--- 로봇 정보 ---");
+            EventLog.println("이름 : "+getName());
+            EventLog.println("속도 : "+getSpeed());
+            if(!getModules().isEmpty()){
+                EventLog.println("모듈 : "+String.join(", ", getModules()));
+            }
+            EventLog.println("근력 : "+getStrength()+"\n");
+        }
+    }
 }
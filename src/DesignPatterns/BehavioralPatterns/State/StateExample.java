@@ -1,5 +1,14 @@
 package BehavioralPatterns.State;
 
+import DesignPatterns.Common.EventLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
 public class StateExample {
     public static void main(String[] args) {
         Order order = new Order();
@@ -13,66 +22,562 @@ public class StateExample {
 
         order.deliveryCompleteSign();
         order.infoMessageOut();
+
+        Order nextOrder = new Order();
+        while(nextOrder.nextSign()){
+            nextOrder.infoMessageOut();
+        }
+
+        try {
+            new Order().deliveryCompleteSign();
+        } catch (IllegalStateException e) {
+            EventLog.println(e.getMessage());
+        }
+
+        byte[] orderStates = new byte[1_000_000];
+        byte[] orderEvents = new byte[orderStates.length];
+        Arrays.fill(orderEvents, (byte) OrderEvent.SEND.ordinal());
+        int rejected = Order.LIFECYCLE.fireAll(orderStates, orderEvents, 0, orderStates.length);
+        EventLog.println("발송 처리 : " + (orderStates.length - rejected) + "건, 거절 : " + rejected + "건");
+
+        OrderStateStore orderStateStore = new OrderStateStore(1_000_000, true);
+        for(long orderId = 0; orderId < 1_000_000; orderId++){
+            orderStateStore.add(orderId, orderId);
+        }
+        orderStateStore.fireWhere(OrderStep.ORDER_COMPLETE, OrderEvent.SEND, 500_000, 1_000_000);
+        int[] stateCounts = orderStateStore.countByState();
+        for(OrderStep step : OrderStep.values()){
+            EventLog.println(step + " : " + stateCounts[step.ordinal()] + "건");
+        }
+
+        Path logFile = Path.of(System.getProperty("java.io.tmpdir"), "order-transition.log");
+        try (OrderTransitionLog transitionLog = new OrderTransitionLog(logFile, 256)) {
+            Order loggedOrder = new Order(42L, transitionLog);
+            loggedOrder.sendSign();
+            loggedOrder.deliverySign();
+            transitionLog.flush();
+            EventLog.println("42번 주문 현재 상태 : " + OrderStep.of(OrderTransitionLog.currentState(logFile, 42L)));
+            OrderTransitionLog.query(logFile, 0, Long.MAX_VALUE, (orderId, from, to, timestamp) ->
+                    EventLog.println(orderId + "번 주문 : " + OrderStep.of(from) + " -> " + OrderStep.of(to)));
+        }
     }
 }
 
 class Order{
-    OrderState orderState;
+    // 주문 상태 전이 규칙. 주문 완료 -> 발송 -> 배송 -> 배송 완료 순서로만 진행된다.
+    static final StateMachineEngine LIFECYCLE = new StateMachineEngine.Builder(OrderStep.count(), OrderEvent.count())
+            .transition(OrderStep.ORDER_COMPLETE.ordinal(), OrderEvent.SEND.ordinal(), OrderStep.SEND.ordinal())
+            .transition(OrderStep.SEND.ordinal(), OrderEvent.DELIVERY.ordinal(), OrderStep.DELIVERY.ordinal())
+            .transition(OrderStep.DELIVERY.ordinal(), OrderEvent.DELIVERY_COMPLETE.ordinal(), OrderStep.DELIVERY_COMPLETE.ordinal())
+            .build();
+
+    OrderStep orderStep;
+    private final long orderId;
+    private final OrderTransitionLog transitionLog;
 
     public Order(){
-        setOrderState(new OrderComplete());
+        this(0L, null);
     }
 
-    private void setOrderState(OrderState orderState){
-        this.orderState = orderState;
+    // transitionLog 가 있으면 상태가 바뀔 때마다 기록을 남긴다.
+    public Order(long orderId, OrderTransitionLog transitionLog){
+        this.orderId = orderId;
+        this.transitionLog = transitionLog;
+        setOrderState(OrderStep.ORDER_COMPLETE);
+    }
+
+    // 상태 객체는 미리 만들어 둔 것을 같이 쓰므로, 상태가 바뀌어도 참조만 바뀐다.
+    private void setOrderState(OrderStep orderStep){
+        this.orderStep = orderStep;
+    }
+
+    public OrderState getOrderState() {
+        return orderStep.state();
     }
 
     public void infoMessageOut(){
-        System.out.print("현재 상태 : ");
-        orderState.infoMessage();
+        EventLog.println("현재 상태 : " + orderStep.state().infoMessage());
     }
 
     public void sendSign(){
-        setOrderState(new Send());
+        fire(OrderEvent.SEND);
     }
 
     public void deliverySign(){
-        setOrderState(new Delivery());
+        fire(OrderEvent.DELIVERY);
     }
 
     public void deliveryCompleteSign(){
-        setOrderState(new DeliveryComplete());
+        fire(OrderEvent.DELIVERY_COMPLETE);
+    }
+
+    private void fire(OrderEvent event){
+        int next = LIFECYCLE.fire(orderStep.ordinal(), event.ordinal());
+        if(next == StateMachineEngine.REJECTED){
+            throw new IllegalStateException("잘못된 상태 변경입니다 : " + orderStep + " -> " + event);
+        }
+        changeState(OrderStep.of(next));
+    }
+
+    private void changeState(OrderStep next){
+        if(transitionLog != null){
+            transitionLog.append(orderId, orderStep.ordinal(), next.ordinal(), System.currentTimeMillis());
+        }
+        setOrderState(next);
+    }
+
+    // 지금 상태에서 받을 수 있는 신호가 하나뿐이면 그 신호로 넘어간다. 마지막 상태이거나 넘어갈 수 없으면 false
+    public boolean nextSign(){
+        int event = LIFECYCLE.soleEvent(orderStep.ordinal());
+        if(event == StateMachineEngine.REJECTED){
+            return false;
+        }
+        int next = LIFECYCLE.fire(orderStep.ordinal(), event);
+        if(next == StateMachineEngine.REJECTED){
+            return false;
+        }
+        changeState(OrderStep.of(next));
+        return true;
+    }
+}
+
+// 상태 객체들은 가진 데이터가 없으므로, 상태마다 하나씩만 만들어 모든 주문이 같이 쓴다.
+enum OrderStep{
+    ORDER_COMPLETE(new OrderComplete()),
+    SEND(new Send()),
+    DELIVERY(new Delivery()),
+    DELIVERY_COMPLETE(new DeliveryComplete());
+
+    private static final OrderStep[] STEPS = values();
+
+    private final OrderState state;
+
+    OrderStep(OrderState state) {
+        this.state = state;
+    }
+
+    public static OrderStep of(int code) {
+        return STEPS[code];
+    }
+
+    public static int count() {
+        return STEPS.length;
+    }
+
+    public OrderState state() {
+        return state;
+    }
+}
+
+// 주문에 들어오는 신호
+enum OrderEvent{
+    SEND,
+    DELIVERY,
+    DELIVERY_COMPLETE;
+
+    private static final int COUNT = values().length;
+
+    public static int count() {
+        return COUNT;
+    }
+}
+
+// 전이 조건. index 는 일괄 처리 중인 대상의 위치이고, 단건 처리에서는 -1 이다.
+interface TransitionGuard{
+    boolean allow(int index, int from, int event, int to);
+}
+
+// 전이가 일어난 뒤 실행되는 동작
+interface TransitionAction{
+    void run(int index, int from, int event, int to);
+}
+
+// 상태와 신호를 번호로 다루는 표 기반 상태 기계.
+// 전이는 [상태 x 신호] 크기의 byte 배열에 한 번만 선언하고, 전이 가능 여부는 배열 조회 한 번으로 확인한다.
+class StateMachineEngine{
+    static final int REJECTED = -1;
+
+    private final int stateCount;
+    private final int eventCount;
+    private final byte[] transitionMatrix;
+    private final TransitionGuard[] guards;
+    private final TransitionAction[] actions;
+    private final int[] soleEvents;
+
+    private StateMachineEngine(Builder builder) {
+        this.stateCount = builder.stateCount;
+        this.eventCount = builder.eventCount;
+        this.transitionMatrix = builder.transitionMatrix.clone();
+        this.guards = builder.guards.clone();
+        this.actions = builder.actions.clone();
+        this.soleEvents = new int[builder.stateCount];
+        for(int state = 0; state < builder.stateCount; state++){
+            soleEvents[state] = findSoleEvent(state);
+        }
+    }
+
+    private int findSoleEvent(int state){
+        int sole = REJECTED;
+        for(int event = 0; event < eventCount; event++){
+            if(!canFire(state, event)){
+                continue;
+            }
+            if(sole != REJECTED){
+                return REJECTED;
+            }
+            sole = event;
+        }
+        return sole;
+    }
+
+    public int fire(int state, int event){
+        return fire(-1, state, event);
+    }
+
+    // 전이 후 상태. 범위를 벗어난 상태/신호, 선언되지 않은 전이, 조건을 통과하지 못한 전이는 REJECTED
+    public int fire(int index, int state, int event){
+        int cell = cellOf(state, event);
+        if(cell < 0){
+            return REJECTED;
+        }
+        int next = transitionMatrix[cell];
+        if(next == REJECTED){
+            return REJECTED;
+        }
+        TransitionGuard guard = guards[cell];
+        if(guard != null && !guard.allow(index, state, event, next)){
+            return REJECTED;
+        }
+        TransitionAction action = actions[cell];
+        if(action != null){
+            action.run(index, state, event, next);
+        }
+        return next;
+    }
+
+    // states[i] 에 events[i] 를 적용한다. 거절된 대상은 상태가 그대로 남고, 거절된 수를 돌려준다.
+    public int fireAll(byte[] states, byte[] events, int from, int to){
+        int rejected = 0;
+        for(int i = from; i < to; i++){
+            int next = fire(i, states[i], events[i]);
+            if(next == REJECTED){
+                rejected++;
+            }else{
+                states[i] = (byte) next;
+            }
+        }
+        return rejected;
+    }
+
+    public boolean canFire(int state, int event){
+        int cell = cellOf(state, event);
+        return cell >= 0 && transitionMatrix[cell] != REJECTED;
+    }
+
+    // state 에서 선언된 전이가 하나뿐이면 그 신호. 없거나 여러 개면 REJECTED
+    public int soleEvent(int state){
+        if(state < 0 || state >= stateCount){
+            return REJECTED;
+        }
+        return soleEvents[state];
+    }
+
+    // 조건과 동작은 실행하지 않고 표만 본 다음 상태
+    public int nextState(int state, int event){
+        int cell = cellOf(state, event);
+        return cell < 0 ? REJECTED : transitionMatrix[cell];
+    }
+
+    // 표의 칸 위치. 상태나 신호가 범위를 벗어나면 다른 상태의 칸을 읽지 않도록 -1
+    private int cellOf(int state, int event){
+        if(state < 0 || state >= stateCount || event < 0 || event >= eventCount){
+            return -1;
+        }
+        return state * eventCount + event;
+    }
+
+    public static class Builder{
+        private final int stateCount;
+        private final int eventCount;
+        private final byte[] transitionMatrix;
+        private final TransitionGuard[] guards;
+        private final TransitionAction[] actions;
+
+        public Builder(int stateCount, int eventCount) {
+            if(stateCount <= 0 || stateCount > Byte.MAX_VALUE || eventCount <= 0){
+                throw new IllegalArgumentException("상태 수는 1 ~ " + Byte.MAX_VALUE + ", 신호 수는 1 이상이어야 합니다.");
+            }
+            this.stateCount = stateCount;
+            this.eventCount = eventCount;
+            this.transitionMatrix = new byte[stateCount * eventCount];
+            this.guards = new TransitionGuard[stateCount * eventCount];
+            this.actions = new TransitionAction[stateCount * eventCount];
+            Arrays.fill(transitionMatrix, (byte) REJECTED);
+        }
+
+        public Builder transition(int from, int event, int to) {
+            return transition(from, event, to, null, null);
+        }
+
+        public Builder transition(int from, int event, int to, TransitionGuard guard, TransitionAction action) {
+            if(from < 0 || from >= stateCount || to < 0 || to >= stateCount || event < 0 || event >= eventCount){
+                throw new IllegalArgumentException("잘못된 전이입니다 : " + from + " -(" + event + ")-> " + to);
+            }
+            int cell = from * eventCount + event;
+            transitionMatrix[cell] = (byte) to;
+            guards[cell] = guard;
+            actions[cell] = action;
+            return this;
+        }
+
+        public StateMachineEngine build() {
+            return new StateMachineEngine(this);
+        }
+    }
+}
+
+// 많은 주문의 상태를 객체 대신 필드별 배열로 보관한다.
+// 상태 코드는 OrderStep 의 순번이고, 시각은 마지막으로 상태가 바뀐 시각이다.
+// offHeap 이면 상태 코드와 시각을 힙 밖의 direct 버퍼에 둔다.
+class OrderStateStore{
+    private final long[] orderIds;
+    private final byte[] stateCodes;
+    private final long[] changedAts;
+    private final ByteBuffer offHeapStateCodes;
+    private final ByteBuffer offHeapChangedAts;
+    private int size;
+
+    public OrderStateStore(int capacity, boolean offHeap) {
+        if(capacity < 0){
+            throw new IllegalArgumentException("capacity 는 0 이상이어야 합니다 : " + capacity);
+        }
+        this.orderIds = new long[capacity];
+        if(offHeap && (long) capacity * Long.BYTES > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("힙 밖에 두기에는 capacity 가 너무 큽니다 : " + capacity);
+        }
+        if(offHeap){
+            this.stateCodes = null;
+            this.changedAts = null;
+            this.offHeapStateCodes = ByteBuffer.allocateDirect(capacity);
+            this.offHeapChangedAts = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        }else{
+            this.stateCodes = new byte[capacity];
+            this.changedAts = new long[capacity];
+            this.offHeapStateCodes = null;
+            this.offHeapChangedAts = null;
+        }
+    }
+
+    // 주문 완료 상태로 추가하고, 추가된 위치를 돌려준다.
+    public int add(long orderId, long now){
+        if(size == orderIds.length){
+            throw new IllegalStateException("저장 공간이 가득 찼습니다 : " + size);
+        }
+        int index = size++;
+        orderIds[index] = orderId;
+        setState(index, OrderStep.ORDER_COMPLETE.ordinal(), now);
+        return index;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long orderIdAt(int index){
+        return orderIds[index];
+    }
+
+    public OrderStep stateAt(int index){
+        return OrderStep.of(stateCodeAt(index));
+    }
+
+    // state 상태로 before 보다 먼저 바뀐 주문 모두에 event 를 적용하고, 바뀐 주문 수를 돌려준다.
+    // 전이 표만 확인하며, 전이 조건과 동작은 실행하지 않는다.
+    public int fireWhere(OrderStep state, OrderEvent event, long before, long now){
+        int next = Order.LIFECYCLE.nextState(state.ordinal(), event.ordinal());
+        if(next == StateMachineEngine.REJECTED){
+            throw new IllegalStateException("잘못된 상태 변경입니다 : " + state + " -> " + event);
+        }
+        byte from = (byte) state.ordinal();
+        int moved = 0;
+        if(stateCodes != null){
+            for(int i = 0; i < size; i++){
+                if(stateCodes[i] == from && changedAts[i] < before){
+                    stateCodes[i] = (byte) next;
+                    changedAts[i] = now;
+                    moved++;
+                }
+            }
+            return moved;
+        }
+        for(int i = 0; i < size; i++){
+            if(offHeapStateCodes.get(i) == from && offHeapChangedAts.getLong(i * Long.BYTES) < before){
+                setState(i, next, now);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    // 상태별 주문 수. 배열 위치는 OrderStep 의 순번이다.
+    public int[] countByState(){
+        int[] counts = new int[OrderStep.count()];
+        for(int i = 0; i < size; i++){
+            counts[stateCodeAt(i)]++;
+        }
+        return counts;
+    }
+
+    private int stateCodeAt(int index){
+        return stateCodes != null ? stateCodes[index] : offHeapStateCodes.get(index);
+    }
+
+    private void setState(int index, int stateCode, long now){
+        if(stateCodes != null){
+            stateCodes[index] = (byte) stateCode;
+            changedAts[index] = now;
+        }else{
+            offHeapStateCodes.put(index, (byte) stateCode);
+            offHeapChangedAts.putLong(index * Long.BYTES, now);
+        }
+    }
+}
+
+// 상태 전이 기록 한 건을 받는 곳
+interface TransitionRecordConsumer{
+    void accept(long orderId, int from, int to, long timestamp);
+}
+
+// 주문 상태 전이를 (주문 번호, 이전 상태, 다음 상태, 시각) 18바이트 기록으로 파일 끝에 이어 쓰는 로그.
+// 기록은 버퍼에 모았다가 한 번에 쓰고, fsync 는 syncEveryRecords 건마다 한 번만 한다.
+class OrderTransitionLog implements AutoCloseable{
+    static final int RECORD_SIZE = Long.BYTES + 1 + 1 + Long.BYTES;
+    private static final int READ_BUFFER_RECORDS = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer;
+    private final int syncEveryRecords;
+    private int unsyncedRecords;
+
+    public OrderTransitionLog(Path logFile, int syncEveryRecords) {
+        if(syncEveryRecords <= 0){
+            throw new IllegalArgumentException("syncEveryRecords 는 1 이상이어야 합니다 : " + syncEveryRecords);
+        }
+        this.syncEveryRecords = syncEveryRecords;
+        this.writeBuffer = ByteBuffer.allocateDirect(RECORD_SIZE * syncEveryRecords);
+        try {
+            this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // 이전 실행이 기록을 쓰다 멈췄다면 덜 쓰인 꼬리를 잘라, 새 기록이 기록 경계에서 시작하게 한다.
+            long size = channel.size();
+            long aligned = size - size % RECORD_SIZE;
+            channel.truncate(aligned);
+            channel.position(aligned);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void append(long orderId, int from, int to, long timestamp){
+        writeBuffer.putLong(orderId).put((byte) from).put((byte) to).putLong(timestamp);
+        unsyncedRecords++;
+        if(unsyncedRecords == syncEveryRecords){
+            flush();
+        }
+    }
+
+    // 버퍼에 모인 기록을 파일에 쓰고 디스크까지 내린다.
+    public synchronized void flush(){
+        if(unsyncedRecords == 0){
+            return;
+        }
+        try {
+            writeBuffer.flip();
+            while(writeBuffer.hasRemaining()){
+                channel.write(writeBuffer);
+            }
+            writeBuffer.clear();
+            channel.force(false);
+            unsyncedRecords = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 로그 전체를 처음부터 순서대로 읽는다. 마지막에 덜 쓰인 기록은 무시한다.
+    public static void replay(Path logFile, TransitionRecordConsumer consumer){
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(RECORD_SIZE * READ_BUFFER_RECORDS);
+        try (FileChannel readChannel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            while(readChannel.read(readBuffer) > 0 || readBuffer.position() >= RECORD_SIZE){
+                readBuffer.flip();
+                while(readBuffer.remaining() >= RECORD_SIZE){
+                    consumer.accept(readBuffer.getLong(), readBuffer.get(), readBuffer.get(), readBuffer.getLong());
+                }
+                readBuffer.compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 로그를 끝까지 읽어 주문의 현재 상태 코드를 찾는다. 기록이 없으면 -1
+    public static int currentState(Path logFile, long orderId){
+        int[] state = {-1};
+        replay(logFile, (id, from, to, timestamp) -> {
+            if(id == orderId){
+                state[0] = to;
+            }
+        });
+        return state[0];
+    }
+
+    // fromTime 이상, toTime 미만 시각의 기록만 넘긴다.
+    public static void query(Path logFile, long fromTime, long toTime, TransitionRecordConsumer consumer){
+        replay(logFile, (orderId, from, to, timestamp) -> {
+            if(timestamp >= fromTime && timestamp < toTime){
+                consumer.accept(orderId, from, to, timestamp);
+            }
+        });
     }
 }
 
 interface OrderState{
-    void infoMessage();
+    String infoMessage();
 }
 
 class OrderComplete implements OrderState{
     @Override
-    public void infoMessage() {
-        System.out.println("주문이 완료되었습니다.");
+    public String infoMessage() {
+        return "주문이 완료되었습니다.";
     }
 }
 
 class Send implements OrderState{
     @Override
-    public void infoMessage() {
-        System.out.println("판매자가 물건을 발송했습니다.");
+    public String infoMessage() {
+        return "판매자가 물건을 발송했습니다.";
     }
 }
 
 class Delivery implements OrderState{
     @Override
-    public void infoMessage() {
-        System.out.println("택배기사님이 물건을 배송중입니다.");
+    public String infoMessage() {
+        return "택배기사님이 물건을 배송중입니다.";
     }
 }
 
 class DeliveryComplete implements OrderState{
     @Override
-    public void infoMessage() {
-        System.out.println("배송이 완료되었습니다.");
+    public String infoMessage() {
+        return "배송이 완료되었습니다.";
     }
 }
\ No newline at end of file
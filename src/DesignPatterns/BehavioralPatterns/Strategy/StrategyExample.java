@@ -1,5 +1,14 @@
 package BehavioralPatterns.Strategy;
 
+import DesignPatterns.Common.EventLog;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
 public class StrategyExample {
     public static void main(String[] args) {
         Gun gun = new Gun();
@@ -12,6 +21,13 @@ public class StrategyExample {
 
         gun.setBullet(new GasBullet());
         gun.fire();
+        gun.fire(3);
+
+        FireDispatcher fireDispatcher = new FireDispatcher();
+        fireDispatcher.request(new RealBullet(), 2);
+        fireDispatcher.request(new BlankBullet(), 1);
+        fireDispatcher.request(new RealBullet(), 1);
+        fireDispatcher.fireAll();
     }
 }
 
@@ -21,38 +37,143 @@ class Gun {
 
     public void setBullet(Bullet bullet) {
         this.bullet = bullet;
-        System.out.println("장전 완료.");
+        EventLog.println("장전 완료.");
     }
 
     public void fire() {
-        System.out.println("격발!");
+        EventLog.println("격발!");
         bullet.action();
     }
+
+    // 장전된 탄으로 여러 발을 연달아 쏜다.
+    public void fire(int rounds) {
+        EventLog.println("연속 격발! " + rounds + "발");
+        FireDispatcher.fire(bullet, rounds);
+    }
+}
+
+// 발사 요청을 탄 종류별로 모았다가, 종류마다 전용 반복문으로 한꺼번에 쏜다.
+// 반복문은 탄 종류(getClass())마다 처음 쏠 때 하나 골라 두고 이후에는 찾기만 한다.
+// 전용 반복문 안의 action() 호출 지점은 한 종류의 탄만 보게 되어, JIT 가 해당 구현을 인라인할 수 있다.
+class FireDispatcher{
+    private static final Map<Class<? extends Bullet>,Supplier<FireLoop>> LOOP_FACTORIES = Map.of(
+            RealBullet.class, RealFireLoop::new,
+            BlankBullet.class, BlankFireLoop::new,
+            GasBullet.class, GasFireLoop::new);
+    private static final ConcurrentMap<Class<? extends Bullet>,FireLoop> FIRE_LOOPS = new ConcurrentHashMap<>();
+
+    private final Map<Class<? extends Bullet>,List<FireRequest>> requestMap = new LinkedHashMap<>();
+
+    public void request(Bullet bullet, int rounds){
+        if(rounds < 0){
+            throw new IllegalArgumentException("rounds 는 0 이상이어야 합니다 : " + rounds);
+        }
+        requestMap.computeIfAbsent(bullet.getClass(), type -> new ArrayList<>()).add(new FireRequest(bullet, rounds));
+    }
+
+    public void fireAll(){
+        for(Map.Entry<Class<? extends Bullet>,List<FireRequest>> entry : requestMap.entrySet()){
+            FireLoop fireLoop = fireLoopOf(entry.getKey());
+            for(FireRequest fireRequest : entry.getValue()){
+                fireLoop.fire(fireRequest.bullet, fireRequest.rounds);
+            }
+        }
+        requestMap.clear();
+    }
+
+    static void fire(Bullet bullet, int rounds){
+        fireLoopOf(bullet.getClass()).fire(bullet, rounds);
+    }
+
+    private static FireLoop fireLoopOf(Class<? extends Bullet> type){
+        return FIRE_LOOPS.computeIfAbsent(type, FireDispatcher::newFireLoop);
+    }
+
+    // 전용 반복문이 없는 탄은 공용 반복문으로 쏜다.
+    private static FireLoop newFireLoop(Class<? extends Bullet> type){
+        Supplier<FireLoop> factory = LOOP_FACTORIES.get(type);
+        return factory != null ? factory.get() : new PolymorphicFireLoop();
+    }
+
+    // 한 종류의 탄을 rounds 발 쏘는 반복문
+    private interface FireLoop{
+        void fire(Bullet bullet, int rounds);
+    }
+
+    // 탄 클래스가 final 이므로, 형변환한 뒤의 action() 은 프로파일과 상관없이 호출 대상이 하나로 정해진다.
+    private static final class RealFireLoop implements FireLoop{
+        @Override
+        public void fire(Bullet bullet, int rounds) {
+            RealBullet realBullet = (RealBullet) bullet;
+            for(int i = 0; i < rounds; i++){
+                realBullet.action();
+            }
+        }
+    }
+
+    private static final class BlankFireLoop implements FireLoop{
+        @Override
+        public void fire(Bullet bullet, int rounds) {
+            BlankBullet blankBullet = (BlankBullet) bullet;
+            for(int i = 0; i < rounds; i++){
+                blankBullet.action();
+            }
+        }
+    }
+
+    private static final class GasFireLoop implements FireLoop{
+        @Override
+        public void fire(Bullet bullet, int rounds) {
+            GasBullet gasBullet = (GasBullet) bullet;
+            for(int i = 0; i < rounds; i++){
+                gasBullet.action();
+            }
+        }
+    }
+
+    private static final class PolymorphicFireLoop implements FireLoop{
+        @Override
+        public void fire(Bullet bullet, int rounds) {
+            for(int i = 0; i < rounds; i++){
+                bullet.action();
+            }
+        }
+    }
+
+    private static class FireRequest{
+        private final Bullet bullet;
+        private final int rounds;
+
+        FireRequest(Bullet bullet, int rounds) {
+            this.bullet = bullet;
+            this.rounds = rounds;
+        }
+    }
 }
 
 interface Bullet{
     void action();
 }
 
-class BlankBullet implements Bullet{
+final class BlankBullet implements Bullet{
 
     @Override
     public void action() {
-        System.out.println("공포탄 - 상태이상 부여");
+        EventLog.println("공포탄 - 상태이상 부여");
     }
 }
-class GasBullet implements Bullet{
+final class GasBullet implements Bullet{
 
     @Override
     public void action() {
-        System.out.println("가스탄 - 지속 데미지 10");
+        EventLog.println("가스탄 - 지속 데미지 10");
     }
 }
 
-class RealBullet implements Bullet{
+final class RealBullet implements Bullet{
 
     @Override
     public void action() {
-        System.out.println("실탄 - 단발 데미지 100");
+        EventLog.println("실탄 - 단발 데미지 100");
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package BehavioralPatterns.TemplateMethod;
 
+import DesignPatterns.Common.EventLog;
+
 public class TemplateMethodExample {
     public static void main(String[] args) {
         Pizza myPizza1 = new HotPizza();
@@ -23,23 +25,23 @@ abstract class Pizza {
     }
 
     void prepareDough() {
-        System.out.println("도우를 준비합니다.");
+        EventLog.println("도우를 준비합니다.");
     }
 
     void bake() {
-        System.out.println("피자를 굽습니다.");
+        EventLog.println("피자를 굽습니다.");
     }
 
     void cut() {
-        System.out.println("피자를 자릅니다.");
+        EventLog.println("피자를 자릅니다.");
     }
 
     void addCoke() {
-        System.out.println("콜라를 추가합니다.");
+        EventLog.println("콜라를 추가합니다.");
     }
 
     void serve() {
-        System.out.println("피자를 손님에게 줍니다.");
+        EventLog.println("피자를 손님에게 줍니다.");
     }
 
     boolean orderCoke() {
@@ -53,26 +55,26 @@ abstract class Pizza {
 
 class HotPizza extends Pizza {
     public void addSauce() {
-        System.out.println("매운 소스를 넣습니다.");
+        EventLog.println("매운 소스를 넣습니다.");
     }
 
     public void addToppings() {
-        System.out.println("매운 재료를 넣습니다.");
+        EventLog.println("매운 재료를 넣습니다.");
     }
 
     @Override
     public boolean orderCoke() {
-        System.out.println("매워서 음료 필요함.");
+        EventLog.println("매워서 음료 필요함.");
         return true;
     }
 }
 
 class PineApplePizza extends Pizza {
     public void addSauce() {
-        System.out.println("파인애플 소스를 넣습니다.");
+        EventLog.println("파인애플 소스를 넣습니다.");
     }
 
     public void addToppings() {
-        System.out.println("파인애플을 넣습니다.");
+        EventLog.println("파인애플을 넣습니다.");
     }
 }
\ No newline at end of file
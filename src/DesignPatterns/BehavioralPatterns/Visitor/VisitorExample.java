@@ -1,5 +1,7 @@
 package DesignPatterns.BehavioralPatterns.Visitor;
 
+import DesignPatterns.Common.EventLog;
+
 public class VisitorExample {
     public static void main(String[] args) {
         Animal giraffe = new Giraffe("나뭇잎");
@@ -70,33 +72,33 @@ interface Visitor {
 class FeedVisitor implements Visitor {
     @Override
     public void visit(Giraffe giraffe) {
-        System.out.println("기린에게 " + giraffe.getFavoriteFood() + " 먹이기 완료.");
+        EventLog.println("기린에게 " + giraffe.getFavoriteFood() + " 먹이기 완료.");
     }
 
     @Override
     public void visit(Lion lion) {
-        System.out.println("사자에게 " + lion.getFavoriteFood() + " 먹이기 완료.");
+        EventLog.println("사자에게 " + lion.getFavoriteFood() + " 먹이기 완료.");
     }
 
     @Override
     public void visit(Penguin penguin) {
-        System.out.println("펭귄에게 " + penguin.getFavoriteFood() + " 먹이기 완료.");
+        EventLog.println("펭귄에게 " + penguin.getFavoriteFood() + " 먹이기 완료.");
     }
 }
 
 class HealthCheckVisitor implements Visitor {
     @Override
     public void visit(Giraffe giraffe) {
-        System.out.println("기린의 목을 체크합니다.");
+        EventLog.println("기린의 목을 체크합니다.");
     }
 
     @Override
     public void visit(Lion lion) {
-        System.out.println("사자의 발톱을 체크합니다.");
+        EventLog.println("사자의 발톱을 체크합니다.");
     }
 
     @Override
     public void visit(Penguin penguin) {
-        System.out.println("펭귄의 부리를 체크합니다.");
+        EventLog.println("펭귄의 부리를 체크합니다.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package DesignPatterns.Common;
+
+// 모든 예제가 공유하는 로그 출력 창구. 출력 방식은 setSink 로 바꿀 수 있다.
+public final class EventLog {
+
+    private static volatile EventSink sink = new StdoutEventSink();
+
+    private EventLog() {
+    }
+
+    public static void println(String line){
+        sink.println(line);
+    }
+
+    public static EventSink getSink() {
+        return sink;
+    }
+
+    public static void setSink(EventSink eventSink) {
+        if(eventSink == null){
+            throw new IllegalArgumentException("eventSink 는 null 일 수 없습니다.");
+        }
+        sink.flush();
+        sink = eventSink;
+    }
+}
@@ -0,0 +1,9 @@
+package DesignPatterns.Common;
+
+// 예제 클래스들이 출력하는 로그 한 줄을 받아 가는 곳
+public interface EventSink {
+    void println(String line);
+
+    default void flush(){
+    }
+}
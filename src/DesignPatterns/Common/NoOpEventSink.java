@@ -0,0 +1,9 @@
+package DesignPatterns.Common;
+
+// 벤치마크용. 아무것도 출력하지 않는다.
+public class NoOpEventSink implements EventSink {
+
+    @Override
+    public void println(String line) {
+    }
+}
@@ -0,0 +1,115 @@
+package DesignPatterns.Common;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// 로그를 링 버퍼에 넣기만 하고, 출력은 별도 스레드가 여러 줄씩 모아서 한 번에 한다.
+public class RingBufferEventSink implements EventSink, AutoCloseable {
+
+    private static final int MAX_SPINS = 100;
+    private static final long PRODUCER_PARK_NANOS = 10_000;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int capacity;
+    private final int mask;
+    private final int maxBatchSize;
+    private final PrintStream out;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private volatile long readSequence;
+    private volatile long printedSequence;
+    private volatile boolean running = true;
+    private final Thread consumer;
+
+    public RingBufferEventSink(int capacity, int maxBatchSize) {
+        this(capacity, maxBatchSize, System.out);
+    }
+
+    public RingBufferEventSink(int capacity, int maxBatchSize, PrintStream out) {
+        if(capacity <= 0 || Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("capacity 는 2의 거듭제곱이어야 합니다 : " + capacity);
+        }
+        if(maxBatchSize <= 0){
+            throw new IllegalArgumentException("maxBatchSize 는 1 이상이어야 합니다 : " + maxBatchSize);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxBatchSize = maxBatchSize;
+        this.out = out;
+        this.consumer = new Thread(this::drainLoop, "ring-buffer-event-sink");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void println(String line) {
+        if(!running){
+            throw new IllegalStateException("이미 닫힌 EventSink 입니다.");
+        }
+        long sequence = writeSequence.getAndIncrement();
+        // 버퍼가 가득 차면 출력 스레드가 자리를 비울 때까지 기다린다.
+        // 잠깐은 돌면서 기다리고, 그래도 자리가 없으면 잠들어서 출력 스레드에게 CPU 를 넘긴다.
+        int spins = 0;
+        while(sequence - readSequence >= capacity){
+            if(spins < MAX_SPINS){
+                spins++;
+                Thread.onSpinWait();
+            }else{
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+            }
+        }
+        slots.set((int) (sequence & mask), line == null ? "null" : line);
+    }
+
+    @Override
+    public void flush() {
+        long target = writeSequence.get();
+        while(printedSequence < target){
+            LockSupport.parkNanos(10_000);
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop(){
+        StringBuilder batch = new StringBuilder();
+        long next = 0;
+        int batchCount = 0;
+        while(running || next < writeSequence.get()){
+            int index = (int) (next & mask);
+            String line = slots.get(index);
+            if(line != null){
+                slots.set(index, null);
+                next++;
+                readSequence = next;
+                batch.append(line).append(System.lineSeparator());
+                batchCount++;
+                if(batchCount < maxBatchSize){
+                    continue;
+                }
+            }
+            if(batchCount > 0){
+                out.print(batch);
+                batch.setLength(0);
+                batchCount = 0;
+                printedSequence = next;
+            }else{
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        out.flush();
+    }
+}
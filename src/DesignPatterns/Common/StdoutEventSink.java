@@ -0,0 +1,15 @@
+package DesignPatterns.Common;
+
+// 기본값. 지금까지처럼 System.out 으로 바로 출력한다.
+public class StdoutEventSink implements EventSink {
+
+    @Override
+    public void println(String line) {
+        System.out.println(line);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+}
@@ -1,16 +1,18 @@
 package DesignPatterns.CreationalPatterns.AbstractFactory;
 
+import DesignPatterns.Common.EventLog;
+
 public class AbstractFactoryExample {
     public static void main(String[] args) {
         Cafeteria leftCafeteria = new KoreaCafeteria();
         Food myFood = leftCafeteria.createFood("김치라면");
-        System.out.println(myFood.getTaste());
+        EventLog.println(myFood.getTaste());
         myFood = leftCafeteria.createFood("비빔밥");
-        System.out.println(myFood.getTaste());
+        EventLog.println(myFood.getTaste());
 
         Cafeteria rightCafeteria = new WesternCafeteria();
         Food yourFood = rightCafeteria.createFood("스파게티");
-        System.out.println(yourFood.getTaste());
+        EventLog.println(yourFood.getTaste());
     }
 }
 
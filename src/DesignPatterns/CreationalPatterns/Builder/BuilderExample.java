@@ -1,5 +1,6 @@
 package DesignPatterns.CreationalPatterns.Builder;
 
+import DesignPatterns.Common.EventLog;
 import java.util.*;
 
 public class BuilderExample {
@@ -32,12 +33,12 @@ class Sandwich {
     }
 
     public void contains() {
-        System.out.println("내 샌드위치의 구성을 보았다.");
-        System.out.println("메뉴 : " + menu);
-        System.out.println("빵 : " + bread);
-        System.out.println("치즈 : " + cheese);
-        System.out.println("야채 : " + vegetable);
-        System.out.println("소스 : " + sauce);
+        EventLog.println("내 샌드위치의 구성을 보았다.");
+        EventLog.println("메뉴 : " + menu);
+        EventLog.println("빵 : " + bread);
+        EventLog.println("치즈 : " + cheese);
+        EventLog.println("야채 : " + vegetable);
+        EventLog.println("소스 : " + sauce);
     }
 
     public static class Builder {
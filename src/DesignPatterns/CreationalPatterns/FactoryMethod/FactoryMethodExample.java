@@ -1,5 +1,7 @@
 package CreationalPatterns.FactoryMethod;
 
+import DesignPatterns.Common.EventLog;
+
 public class FactoryMethodExample {
     public static void main(String[] args) {
         CoffeeMachine homeCoffeeMachine = new AmericanoMachine();
@@ -21,7 +23,7 @@ class Americano implements Coffee{
 
     @Override
     public void taste() {
-        System.out.println("씁쓸한 맛이 난다.");
+        EventLog.println("씁쓸한 맛이 난다.");
     }
 }
 
@@ -29,7 +31,7 @@ class Latte implements Coffee{
 
     @Override
     public void taste() {
-        System.out.println("고소한 맛이 좋다.");
+        EventLog.println("고소한 맛이 좋다.");
     }
 }
 
@@ -1,5 +1,7 @@
 package DesignPatterns.CreationalPatterns.Singleton;
 
+import DesignPatterns.Common.EventLog;
+
 public class SingletonExample {
     public static void main(String[] args) {
         Student minsu = new Student("민수");
@@ -19,7 +21,7 @@ class Captain{
 
     private Captain(Student student){
         this.name = student.getName();
-        System.out.println("반장 " + this.name + " 선출 완료.");
+        EventLog.println("반장 " + this.name + " 선출 완료.");
     }
 
     public static Captain electCaptain(Student student){
@@ -27,14 +29,14 @@ class Captain{
             captain = new Captain(student);
         }
         else{
-            System.out.println("이미 반장이 있습니다." + captain.name);
+            EventLog.println("이미 반장이 있습니다." + captain.name);
         }
         return captain;
     }
 
     public void ask(Student student){
-        System.out.println("안녕하세요 " + student.getName() + " 학생!");
-        System.out.println("저는 반장 " + captain.name + " 입니다.");
+        EventLog.println("안녕하세요 " + student.getName() + " 학생!");
+        EventLog.println("저는 반장 " + captain.name + " 입니다.");
     }
 }
 
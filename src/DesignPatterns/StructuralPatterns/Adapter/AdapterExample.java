@@ -1,5 +1,7 @@
 package StructuralPatterns.Adapter;
 
+import DesignPatterns.Common.EventLog;
+
 public class AdapterExample {
     public static void main(String[] args) {
         JapanProduct japanFan = new JapanFan();
@@ -20,7 +22,7 @@ class JapanFan implements JapanProduct{
 
     @Override
     public void use110V() {
-        System.out.println("일본 선풍기 가동중");
+        EventLog.println("일본 선풍기 가동중");
     }
 }
 
@@ -32,7 +34,7 @@ class KoreaAircon implements KoreaProduct{
 
     @Override
     public void use220V() {
-        System.out.println("한국 에어컨 가동중");
+        EventLog.println("한국 에어컨 가동중");
     }
 }
 
@@ -45,7 +47,7 @@ class VoltAdapter implements KoreaProduct{
 
     @Override
     public void use220V() {
-        System.out.println("한국 어댑터 : 110V의 제품을 220V에 맞게 변환합니다.");
+        EventLog.println("한국 어댑터 : 110V의 제품을 220V에 맞게 변환합니다.");
         japanProduct.use110V();
     }
 }
\ No newline at end of file
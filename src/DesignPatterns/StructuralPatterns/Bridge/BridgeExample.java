@@ -1,5 +1,7 @@
 package StructuralPatterns.Bridge;
 
+import DesignPatterns.Common.EventLog;
+
 public class BridgeExample {
     public static void main(String[] args) {
         // 성격을 동적으로 설정
@@ -36,7 +38,7 @@ class Dog extends Animal {
     @Override
     void describe() {
         personailty.describe();
-        System.out.println("강아지는 멍멍");
+        EventLog.println("강아지는 멍멍");
     }
 
 }
@@ -50,7 +52,7 @@ class Cat extends Animal {
     @Override
     void describe() {
         personailty.describe();
-        System.out.println("고양이는 야옹");
+        EventLog.println("고양이는 야옹");
     }
 }
 
@@ -64,7 +66,7 @@ class Shy implements Personailty{
 
     @Override
     public void describe() {
-        System.out.println("소심한 성격을 가지고 있다.");
+        EventLog.println("소심한 성격을 가지고 있다.");
     }
 }
 
@@ -72,6 +74,6 @@ class Brave implements Personailty{
 
     @Override
     public void describe() {
-        System.out.println("용감한 성격을 가지고 있다.");
+        EventLog.println("용감한 성격을 가지고 있다.");
     }
 }
\ No newline at end of file
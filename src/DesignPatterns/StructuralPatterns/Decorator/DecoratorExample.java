@@ -1,18 +1,20 @@
 package DesignPatterns.StructuralPatterns.Decorator;
 
+import DesignPatterns.Common.EventLog;
+
 public class DecoratorExample {
     public static void main(String[] args) {
         Icecream myIcecream = new BasicIcecream();
-        System.out.println(myIcecream.getDescription());
-        System.out.println(myIcecream.getCost());
+        EventLog.println(myIcecream.getDescription());
+        EventLog.println(String.valueOf(myIcecream.getCost()));
 
         IcecreamDecorator myChocoIcecream = new ChocoSyrupDecorator(myIcecream);
-        System.out.println(myChocoIcecream.getDescription());
-        System.out.println(myChocoIcecream.getCost());
+        EventLog.println(myChocoIcecream.getDescription());
+        EventLog.println(String.valueOf(myChocoIcecream.getCost()));
 
         IcecreamDecorator myChocoFruitIcecream = new FruitDecorator(myChocoIcecream);
-        System.out.println(myChocoFruitIcecream.getDescription());
-        System.out.println(myChocoFruitIcecream.getCost());
+        EventLog.println(myChocoFruitIcecream.getDescription());
+        EventLog.println(String.valueOf(myChocoFruitIcecream.getCost()));
     }
 }
 
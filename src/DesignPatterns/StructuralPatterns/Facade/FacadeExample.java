@@ -1,5 +1,7 @@
 package StructuralPatterns.Facade;
 
+import DesignPatterns.Common.EventLog;
+
 public class FacadeExample {
     public static void main(String[] args) {
         HotelFront hotelFront = new HotelFront();
@@ -16,13 +18,13 @@ class HotelFront { // 파사드
     private final CookingSystem cookingSystem;
 
     public HotelFront(){
-        System.out.println("호텔에 어서오세요.");
+        EventLog.println("호텔에 어서오세요.");
         cleaningSystem = new CleaningSystem();
         roomManagementSystem = new RoomManagementSystem();
         cookingSystem = new CookingSystem();
     }
     public void checkin(){
-        System.out.println(manager+"가 체크인을 환영합니다.");
+        EventLog.println(manager+"가 체크인을 환영합니다.");
         cleaningSystem.cleaningRoom();;
         roomManagementSystem.roomManaging();
         cookingSystem.cookingFood();
@@ -33,7 +35,7 @@ class CleaningSystem {
     String manager = "Luke";
 
     public void cleaningRoom() {
-        System.out.println(manager+"가 방을 청소합니다.");
+        EventLog.println(manager+"가 방을 청소합니다.");
     }
 }
 
@@ -41,7 +43,7 @@ class RoomManagementSystem {
     String manager = "Alex";
 
     public void roomManaging() {
-        System.out.println(manager+"가 객실을 관리합니다.");
+        EventLog.println(manager+"가 객실을 관리합니다.");
     }
 }
 
@@ -49,7 +51,7 @@ class CookingSystem {
     String manager = "Xiukai";
 
     public void cookingFood() {
-        System.out.println(manager+"가 요리를 시작합니다.");
+        EventLog.println(manager+"가 요리를 시작합니다.");
     }
 }
 
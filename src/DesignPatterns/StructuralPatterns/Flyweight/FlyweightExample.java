@@ -1,5 +1,6 @@
 package StructuralPatterns.Flyweight;
 
+import DesignPatterns.Common.EventLog;
 import java.util.*;
 
 public class FlyweightExample {
@@ -44,7 +45,7 @@ class Student{
         this.haveBook = book;
     }
     public void readBook(){
-        System.out.println(name+" 학생이 "+haveBook.getBookName()+"책을 읽고 있습니다.");
+        EventLog.println(name+" 학생이 "+haveBook.getBookName()+"책을 읽고 있습니다.");
     }
     public String getName(){
         return name;
@@ -57,23 +58,23 @@ class Library{
 
     public void buyBook(String bookName) {
         if (libraryHaveBookMap.containsKey(bookName)) {
-            System.out.println(bookName+"책은 이미 도서관에 있습니다.");
+            EventLog.println(bookName+"책은 이미 도서관에 있습니다.");
             return;
         }
         Book purchasedBook = new Book(bookName);
-        System.out.println("도서 구매 완료 : " + purchasedBook.getBookName());
+        EventLog.println("도서 구매 완료 : " + purchasedBook.getBookName());
         libraryHaveBookMap.put(purchasedBook.getBookName(), purchasedBook);
     }
 
     public void lendBook(Student borrower, String bookName){
-        System.out.println(borrower.getName()+" 학생의 도서 대출 요청 : " + bookName);
+        EventLog.println(borrower.getName()+" 학생의 도서 대출 요청 : " + bookName);
         Book requestBook = libraryHaveBookMap.get(bookName);
         if(requestBook == null){
-            System.out.println("요청된 "+ bookName +"책이 도서관에 없어, 구매를 진행합니다.");
+            EventLog.println("요청된 "+ bookName +"책이 도서관에 없어, 구매를 진행합니다.");
             buyBook(bookName);
             requestBook = libraryHaveBookMap.get(bookName);
         }
-        System.out.println("도서 대출 완료 : " + bookName);
+        EventLog.println("도서 대출 완료 : " + bookName);
         borrower.borrowBook(requestBook);
     }
 }
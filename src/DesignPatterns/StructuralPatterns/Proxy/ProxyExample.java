@@ -1,5 +1,7 @@
 package StructuralPatterns.Proxy;
 
+import DesignPatterns.Common.EventLog;
+
 public class ProxyExample {
     public static void main(String[] args) {
         Account myAccount = new Account(100000,"1234");
@@ -46,15 +48,15 @@ class BankServer implements Bank{
     @Override
     public void deposit(Account account, int requestMoney) {
         account.deposit(requestMoney);
-        System.out.println("입금이 완료되었습니다.");
-        System.out.println("현재 금액 : " + account.getMoney());
+        EventLog.println("입금이 완료되었습니다.");
+        EventLog.println("현재 금액 : " + account.getMoney());
     }
 
     @Override
     public int withdraw(Account account, int requestMoney, String PIN) {
         account.withdraw(requestMoney);
-        System.out.println("출금이 완료되었습니다.");
-        System.out.println("현재 금액 : " + account.getMoney());
+        EventLog.println("출금이 완료되었습니다.");
+        EventLog.println("현재 금액 : " + account.getMoney());
         return requestMoney;
     }
 }
@@ -68,7 +70,7 @@ class ATM implements Bank{
         if(account.validPIN(PIN)){
             return bankServer.withdraw(account, requestMoney, PIN);
         }
-        System.out.println("비밀번호가 일치하지 않습니다.");
+        EventLog.println("비밀번호가 일치하지 않습니다.");
         return 0;
     }
 